@@ -0,0 +1,118 @@
+package msweeper.benchmark;
+
+import msweeper.state.MsweeperState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations of {@link MsweeperState} on grids of several sizes and densities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MsweeperStateBenchmark {
+
+    private static final long SEED = 42L;
+
+    /**
+     * The number of rows and columns of the grid.
+     */
+    @Param({"16x30", "256x256", "2048x2048"})
+    public String size;
+
+    /**
+     * The ratio of the number of mines to the number of squares.
+     */
+    @Param({"0.01", "0.2"})
+    public double density;
+
+    private int rows;
+    private int columns;
+    private int mines;
+
+    /**
+     * A grid with its mines placed and nothing revealed.
+     */
+    private MsweeperState fresh;
+
+    /**
+     * A grid with a large area revealed, in the middle of a game.
+     */
+    private MsweeperState played;
+
+    /**
+     * The square of the largest opening of {@link #fresh}, or a square without a mine if it has no opening.
+     */
+    private int openx;
+    private int openy;
+
+    @Setup
+    public void setUp() {
+        String[] dimensions = size.split("x");
+        rows = Integer.parseInt(dimensions[0]);
+        columns = Integer.parseInt(dimensions[1]);
+        mines = (int) (rows * columns * density);
+        fresh = new MsweeperState(rows, columns, mines, SEED);
+        int best = -1;
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < columns; ++j) {
+                if (fresh.isMine(i, j) || fresh.isRevealed(i, j)) continue;
+                MsweeperState probe = fresh.snapshot();
+                int opened = probe.reveal(i, j);
+                if (opened > best) {
+                    best = opened;
+                    openx = i;
+                    openy = j;
+                }
+                if (opened > rows * columns / 4) break;
+            }
+            if (best > rows * columns / 4) break;
+        }
+        played = fresh.snapshot();
+        played.reveal(openx, openy);
+    }
+
+    @Benchmark
+    public MsweeperState construct() {
+        return new MsweeperState(rows, columns, mines, SEED);
+    }
+
+    /**
+     * Reveals the largest opening of a copy of the grid. The copy shares the pages of the grid, so the
+     * benchmark includes copying the pages the reveal writes.
+     */
+    @Benchmark
+    public int revealOpening() {
+        return fresh.snapshot().reveal(openx, openy);
+    }
+
+    @Benchmark
+    public boolean isWon() {
+        return played.isWon();
+    }
+
+    @Benchmark
+    public boolean isLost() {
+        return played.isLost();
+    }
+
+    @Benchmark
+    public int[][] displayGrid() {
+        return played.displayGrid();
+    }
+
+}
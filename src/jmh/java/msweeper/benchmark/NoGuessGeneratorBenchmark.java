@@ -0,0 +1,77 @@
+package msweeper.benchmark;
+
+import msweeper.solver.NoGuessGenerator;
+import msweeper.state.MsweeperState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link NoGuessGenerator} on the usual difficulties, in grids generated per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoGuessGeneratorBenchmark {
+
+    private static final long SEED = 42L;
+
+    private static final int BATCH = 64;
+
+    /**
+     * The number of rows and columns and the number of mines of the grids.
+     */
+    @Param({"9x9/10", "16x16/40", "16x30/99"})
+    public String difficulty;
+
+    private NoGuessGenerator generator;
+
+    private int startx;
+    private int starty;
+
+    private SplittableRandom random;
+
+    private long batch;
+
+    @Setup
+    public void setUp() {
+        String[] parts = difficulty.split("[x/]");
+        int rows = Integer.parseInt(parts[0]);
+        int columns = Integer.parseInt(parts[1]);
+        generator = new NoGuessGenerator(rows, columns, Integer.parseInt(parts[2]));
+        startx = rows / 2;
+        starty = columns / 2;
+        random = new SplittableRandom(SEED);
+    }
+
+    @Benchmark
+    public MsweeperState generate() {
+        return generator.generate(startx, starty, random);
+    }
+
+    /**
+     * Generates a batch of grids on every available processor.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<MsweeperState> generateBatch() {
+        return generator.generate(BATCH, startx, starty, SEED + batch++);
+    }
+
+}
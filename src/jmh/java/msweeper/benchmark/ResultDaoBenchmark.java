@@ -0,0 +1,164 @@
+package msweeper.benchmark;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+import com.google.inject.persist.jpa.JpaPersistModule;
+import msweeper.results.BoardConfig;
+import msweeper.results.LeaderboardCache;
+import msweeper.results.Result;
+import msweeper.results.ResultDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ResultDao} against an in-memory H2 database, using the persistence unit of the game with
+ * its connection settings replaced. The forked JVM opens {@code java.lang} for the proxies Guice generates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class ResultDaoBenchmark {
+
+    /**
+     * The number of results in the database before the benchmarks start.
+     */
+    @Param({"100", "10000"})
+    public int results;
+
+    private PersistService persistService;
+
+    private ResultDao resultDao;
+
+    private LeaderboardCache leaderboardCache;
+
+    /**
+     * The number of results saved together by {@link #persistAll()}.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final SplittableRandom random = new SplittableRandom(42L);
+
+    private static final BoardConfig[] CONFIGS = {
+            new BoardConfig(9, 9, 10), new BoardConfig(16, 16, 40), new BoardConfig(16, 30, 99)
+    };
+
+    /**
+     * The tenth best result on the first configuration, to read the second page after.
+     */
+    private Result tenth;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("javax.persistence.jdbc.driver", "org.h2.Driver");
+        properties.setProperty("javax.persistence.jdbc.url", "jdbc:h2:mem:benchmark" + results + ";DB_CLOSE_DELAY=-1");
+        properties.setProperty("javax.persistence.jdbc.user", "sa");
+        properties.setProperty("javax.persistence.jdbc.password", "");
+        properties.setProperty("javax.persistence.schema-generation.database.action", "drop-and-create");
+        properties.setProperty("javax.persistence.schema-generation.scripts.action", "none");
+        properties.setProperty("hibernate.use_sql_comments", "false");
+        Injector injector = Guice.createInjector(new JpaPersistModule("minesweeper").properties(properties));
+        persistService = injector.getInstance(PersistService.class);
+        persistService.start();
+        resultDao = injector.getInstance(ResultDao.class);
+        for (int i = 0; i < results; ++i) {
+            resultDao.persist(createResult());
+        }
+        List<Result> firstPage = resultDao.findBest(CONFIGS[0], null, 10);
+        tenth = firstPage.get(firstPage.size() - 1);
+        leaderboardCache = injector.getInstance(LeaderboardCache.class);
+        leaderboardCache.warm(CONFIGS[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        persistService.stop();
+    }
+
+    private Result createResult() {
+        int bbbv = 1 + random.nextInt(200);
+        BoardConfig config = CONFIGS[random.nextInt(CONFIGS.length)];
+        return Result.builder()
+                .boardRows(config.getRows())
+                .boardColumns(config.getColumns())
+                .boardMines(config.getMines())
+                .playerName("player" + random.nextInt(100))
+                .solved(random.nextBoolean())
+                .duration(Duration.ofMillis(1000 + random.nextInt(600_000)))
+                .bbbv(bbbv)
+                .openings(random.nextInt(bbbv))
+                .islands(random.nextInt(bbbv))
+                .build();
+    }
+
+    @Benchmark
+    public Result persist() {
+        Result result = createResult();
+        resultDao.persist(result);
+        return result;
+    }
+
+    @Benchmark
+    public List<Result> persistAll() {
+        List<Result> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; ++i) {
+            batch.add(createResult());
+        }
+        resultDao.persistAll(batch);
+        return batch;
+    }
+
+    @Benchmark
+    public long forEach() {
+        long[] bbbv = new long[1];
+        resultDao.forEach(result -> bbbv[0] += result.getBbbv());
+        return bbbv[0];
+    }
+
+    @Benchmark
+    public List<Result> findBest() {
+        return resultDao.findBest(10);
+    }
+
+    @Benchmark
+    public List<Result> findBestOnConfig() {
+        return resultDao.findBest(CONFIGS[0], null, 10);
+    }
+
+    @Benchmark
+    public List<Result> findBestCached() {
+        return leaderboardCache.getBest(CONFIGS[0]);
+    }
+
+    @Benchmark
+    public List<Result> findBestSecondPage() {
+        return resultDao.findBest(CONFIGS[0], tenth, 10);
+    }
+
+    @Benchmark
+    public List<Result> findMostEfficient() {
+        return resultDao.findMostEfficient(10);
+    }
+
+}
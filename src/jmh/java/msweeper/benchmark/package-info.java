@@ -0,0 +1,6 @@
+/**
+ * Provides JMH benchmarks of the engine and of the persistence of the results. They are built and run by the
+ * {@code benchmark} profile, e.g. {@code mvn -Pbenchmark verify}, which writes the results to
+ * {@code target/jmh-result.json}.
+ */
+package msweeper.benchmark;
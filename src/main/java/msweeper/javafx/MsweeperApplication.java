@@ -8,11 +8,18 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
+import msweeper.javafx.controller.GameController;
+import msweeper.results.LeaderboardCache;
+import msweeper.results.Result;
 import msweeper.results.ResultDao;
+import msweeper.results.ResultMigrations;
+import msweeper.results.ResultWriter;
 import util.guice.PersistenceModule;
 
 import javax.inject.Inject;
+import java.lang.management.ManagementFactory;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 public class MsweeperApplication extends Application {
@@ -21,7 +28,8 @@ public class MsweeperApplication extends Application {
             new AbstractModule() {
                 @Override
                 protected void configure() {
-                    install(new PersistenceModule("minesweeper"));
+                    install(new PersistenceModule("minesweeper", Result.SCHEMA_VERSION,
+                            ResultMigrations.MIGRATIONS));
                     bind(ResultDao.class);
                 }
             }
@@ -30,16 +38,35 @@ public class MsweeperApplication extends Application {
     @Inject
     private FXMLLoader fxmlLoader;
 
+    @Inject
+    private ResultWriter resultWriter;
+
+    @Inject
+    private LeaderboardCache leaderboardCache;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         log.info("Starting application...");
         context.init();
+        CompletableFuture.runAsync(() -> leaderboardCache.warm(GameController.BOARD_CONFIG))
+                .exceptionally(e -> {
+                    log.warn("Cannot load the leaderboard in advance", e);
+                    return null;
+                });
         fxmlLoader.setLocation(getClass().getResource("/fxml/launch.fxml"));
         Parent root = fxmlLoader.load();
         primaryStage.setTitle("Minesweeper");
         primaryStage.setResizable(false);
         primaryStage.setScene(new Scene(root));
+        primaryStage.setOnShown(event -> log.info("First frame shown {} ms after launch",
+                ManagementFactory.getRuntimeMXBean().getUptime()));
         primaryStage.show();
     }
 
-}
\ No newline at end of file
+    @Override
+    public void stop() {
+        log.info("Stopping application...");
+        if (resultWriter != null) resultWriter.close();
+    }
+
+}
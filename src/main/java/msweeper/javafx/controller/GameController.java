@@ -22,30 +22,60 @@ import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DurationFormatUtils;
+import msweeper.results.BoardConfig;
 import msweeper.results.Result;
-import msweeper.results.ResultDao;
+import msweeper.results.ResultWriter;
+import msweeper.simulation.Move;
+import msweeper.simulation.MoveJournal;
+import msweeper.state.BoardAnalyzer;
+import msweeper.state.BoardMetrics;
+import msweeper.state.ChangeSet;
+import msweeper.state.GameFile;
+import msweeper.state.GameListener;
+import msweeper.state.LoggingGameListener;
+import msweeper.state.MoveTimingHistogram;
 import msweeper.state.MsweeperState;
-import org.hibernate.annotations.common.util.impl.Log;
+import msweeper.state.SafeStart;
+import msweeper.state.SavedGame;
 
 import javax.inject.Inject;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 public class GameController {
 
+    private static final int ROWS = 5;
+    private static final int COLUMNS = 10;
+    private static final int MINES = 10;
+
+    /**
+     * The configuration of the grids of the game.
+     */
+    public static final BoardConfig BOARD_CONFIG = new BoardConfig(ROWS, COLUMNS, MINES);
+
     @Inject
     private FXMLLoader fxmlLoader;
 
     @Inject
-    private ResultDao resultDao;
+    private ResultWriter resultWriter;
 
     private String playerName;
     private MsweeperState gameState;
+    private MoveJournal journal;
     private Instant startTime;
+
+    /**
+     * Whether the last click was a chord with the primary and secondary buttons, whose other button is still to be
+     * released.
+     */
+    private boolean chordreleasing;
     private List<Image> imageList;
 
     @FXML
@@ -62,12 +92,32 @@ public class GameController {
     @FXML
     private Button resetButton;
 
+    @FXML
+    private Button saveButton;
+
     @FXML
     private Button giveUpButton;
 
     private BooleanProperty gameOver = new SimpleBooleanProperty();
 
-    public void setPlayerName(String playerName) {this.playerName = playerName;}
+    private final MoveTimingHistogram moveTimings = new MoveTimingHistogram();
+
+    private final GameListener displayListener = new GameListener() {
+        @Override
+        public void squaresRevealed(MsweeperState state, ChangeSet changes) {
+            displayChanges(changes);
+        }
+
+        @Override
+        public void flagToggled(MsweeperState state, int x, int y, boolean flagged) {
+            displaySquare(x, y, state.displayValue(x, y));
+        }
+    };
+
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+        resumeGame();
+    }
 
     @FXML
     public void initialize() {
@@ -85,59 +135,145 @@ public class GameController {
                 new Image(getClass().getResource("/images/revealed7.png").toExternalForm()),
                 new Image(getClass().getResource("/images/revealed8.png").toExternalForm())
         );
+        // A press of a single button starts a new click, even if the end of the last chord has not been seen
+        gameGrid.addEventFilter(MouseEvent.MOUSE_PRESSED, event -> {
+            if (!event.isPrimaryButtonDown() || !event.isSecondaryButtonDown()) chordreleasing = false;
+        });
         gameOver.addListener((observable, oldValue, newValue) -> {
             if (newValue) {
                 log.info("Game is over");
-                log.debug("Saving result to database...");
-                resultDao.persist(createGameResult());
+                log.debug("Submitting result to be saved...");
+                resultWriter.submit(createGameResult());
                 stopwatchTimeline.stop();
+                saveButton.setDisable(true);
+                deleteSavedGame();
+                log.debug("Move timings: {}", moveTimings);
             }
         });
         resetGame();
     }
 
     private void resetGame(){
-        gameState = new MsweeperState(5,10,10);
-        startTime = Instant.now();
+        MsweeperState state = new MsweeperState(ROWS, COLUMNS, MINES, SafeStart.SQUARE);
+        startGame(state, Duration.ZERO, state.getBoardId().map(MoveJournal::new).orElse(null));
+        Platform.runLater(() -> messageLabel.setText("Good luck, " + playerName + "!"));
+    }
+
+    private void startGame(MsweeperState state, Duration elapsed, MoveJournal journal){
+        gameState = state;
+        this.journal = journal;
+        gameState.addListener(new LoggingGameListener());
+        gameState.addListener(displayListener);
+        gameState.addListener(moveTimings);
+        moveTimings.reset();
+        startTime = Instant.now().minus(elapsed);
         gameOver.setValue(false);
         displayGameState();
         createStopWatch();
-        Platform.runLater(() -> messageLabel.setText("Good luck, " + playerName + "!"));
         giveUpButton.setDisable(false);
+        saveButton.setDisable(false);
         resetButton.setText("Reset");
     }
 
+    private Path getSavePath(){
+        return Path.of(System.getProperty("user.home"), ".msweeper", playerName.replaceAll("[^\\w-]", "_") + ".msav");
+    }
+
+    private void resumeGame(){
+        Path path = getSavePath();
+        if (!Files.exists(path)) return;
+        try {
+            SavedGame saved = GameFile.read(path);
+            MsweeperState state = saved.getState();
+            if (state.getRownumber() != ROWS || state.getColnumber() != COLUMNS || state.isWon() || state.isLost()) {
+                log.warn("Saved game in {} cannot be resumed", path);
+                return;
+            }
+            stopwatchTimeline.stop();
+            startGame(state, saved.getElapsed(), resumeJournal(saved));
+            Platform.runLater(() -> messageLabel.setText("Welcome back, " + playerName + "!"));
+            log.info("Game of player {} resumed from {}", playerName, path);
+        } catch (IOException e) {
+            log.warn("Cannot resume game from {}", path, e);
+        }
+    }
+
+    /**
+     * Goes on with the journal of a saved game. A game saved without one, or whose journal cannot be read, only
+     * gets a new journal from its grid if no move has been made yet, as a journal missing the first moves could
+     * not be replayed.
+     */
+    private MoveJournal resumeJournal(SavedGame saved){
+        try {
+            Optional<MoveJournal> resumed = saved.getJournal()
+                    .map(bytes -> MoveJournal.resume(bytes, saved.getElapsed()))
+                    .filter(journal -> saved.getState().getBoardId().equals(Optional.of(journal.getBoardId())));
+            if (resumed.isPresent()) return resumed.get();
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot resume the journal of the saved game", e);
+        }
+        MsweeperState state = saved.getState();
+        if (!state.isHidden() || state.getFlagnumber() > 0) return null;
+        return state.getBoardId().map(MoveJournal::new).orElse(null);
+    }
+
+    private void deleteSavedGame(){
+        try {
+            Files.deleteIfExists(getSavePath());
+        } catch (IOException e) {
+            log.warn("Cannot delete saved game", e);
+        }
+    }
+
     private void displayGameState(){
-        for (int i = 0; i < 5; i++){
-            for (int j = 0; j < 10; j++){
-                ImageView view = (ImageView) gameGrid.getChildren().get(i * 10+ j);
-                if(view.getImage() != null) log.trace("Image({}, {} = {}", i, j, view.getImage().getUrl());
-                view.setImage(imageList.get(gameState.displayGrid()[i][j]));
+        int[][] displayGrid = gameState.displayGrid();
+        for (int i = 0; i < gameState.getRownumber(); i++){
+            for (int j = 0; j < gameState.getColnumber(); j++){
+                displaySquare(i, j, displayGrid[i][j]);
             }
         }
     }
 
+    private void displayChanges(ChangeSet changes){
+        for (int i = 0; i < changes.size(); i++){
+            int row = changes.getX(i);
+            int col = changes.getY(i);
+            displaySquare(row, col, gameState.displayValue(row, col));
+        }
+    }
+
+    private void displaySquare(int row, int col, int value){
+        ImageView view = (ImageView) gameGrid.getChildren().get(row * gameState.getColnumber() + col);
+        if(view.getImage() != null) log.trace("Image({}, {} = {}", row, col, view.getImage().getUrl());
+        view.setImage(imageList.get(value));
+    }
+
     public void handleClickOnSquare(MouseEvent mouseEvent) {
         int row = GridPane.getRowIndex((Node) mouseEvent.getSource());
         int col = GridPane.getColumnIndex((Node) mouseEvent.getSource());
         log.debug("Square ({}, {}) is pressed", row, col);
+        if (isTrailingChordClick(mouseEvent)) {
+            log.trace("Release of the second button of a chord ignored");
+            return;
+        }
         if (! gameState.isWon() && ! gameState.isLost()) {
-            while(gameState.isHidden() && gameState.getMinegrid()[row][col]==1) {
-                log.info("First click would be a bomb, regenerating until it isn't...");
-                gameState = new MsweeperState(5,10,10);
+            Move move = null;
+            if(isChord(mouseEvent)) move = Move.chord(row,col);
+            else if(mouseEvent.getButton() == MouseButton.PRIMARY) move = Move.reveal(row,col);
+            else if(mouseEvent.getButton() == MouseButton.SECONDARY) move = Move.flag(row,col);
+            if (move != null) {
+                move.apply(gameState);
+                if (journal != null) journal.record(move);
             }
-            if(mouseEvent.getButton() == MouseButton.PRIMARY) gameState.reveal(row,col);
-            if(mouseEvent.getButton() == MouseButton.SECONDARY) gameState.putFlag(row,col);
             if (gameState.isLost()) {
                 gameOver.setValue(true);
                 log.info("Player {} has lost the game.", playerName);
-                for(int i=0; i<5; i++){
-                    for(int j=0; j<10; j++){
-                        if(gameState.getFlaggrid()[i][j] == 1) gameState.putFlag(i,j);
+                for(int i=0; i<ROWS; i++){
+                    for(int j=0; j<COLUMNS; j++){
+                        if(gameState.isFlagged(i,j)) gameState.putFlag(i,j);
                         gameState.reveal(i,j);
                     }
                 }
-                displayGameState();
                 giveUpButton.setDisable(true);
                 resetButton.setText("Retry");
                 messageLabel.setText("Game Over. Try again?");
@@ -151,7 +287,26 @@ public class GameController {
             }
 
         }
-        displayGameState();
+    }
+
+    /**
+     * A chord is a click with the middle button, or with one of the primary and secondary buttons while the other
+     * is held down.
+     */
+    private boolean isChord(MouseEvent mouseEvent) {
+        return mouseEvent.getButton() == MouseButton.MIDDLE
+                || mouseEvent.getButton() == MouseButton.PRIMARY && mouseEvent.isSecondaryButtonDown()
+                || mouseEvent.getButton() == MouseButton.SECONDARY && mouseEvent.isPrimaryButtonDown();
+    }
+
+    /**
+     * A chord with the primary and secondary buttons is clicked when the first of them is released, and the release
+     * of the other one delivers a click of its own, which is not a move.
+     */
+    private boolean isTrailingChordClick(MouseEvent mouseEvent) {
+        boolean trailing = chordreleasing && !isChord(mouseEvent);
+        chordreleasing = isChord(mouseEvent) && mouseEvent.getButton() != MouseButton.MIDDLE;
+        return trailing;
     }
 
     public void handleResetButton(ActionEvent actionEvent)  {
@@ -161,6 +316,21 @@ public class GameController {
         resetGame();
     }
 
+    public void handleSaveButton(ActionEvent actionEvent) {
+        log.debug("{} is pressed", ((Button) actionEvent.getSource()).getText());
+        Path path = getSavePath();
+        try {
+            Files.createDirectories(path.getParent());
+            GameFile.write(path, gameState, Duration.between(startTime, Instant.now()),
+                    journal == null ? null : journal.toByteArray());
+            log.info("Game saved to {}", path);
+            messageLabel.setText("Game saved, " + playerName + ".");
+        } catch (IOException e) {
+            log.error("Cannot save game to {}", path, e);
+            messageLabel.setText("The game could not be saved!");
+        }
+    }
+
     public void handleGiveUpButton(ActionEvent actionEvent) throws IOException {
         String buttonText = ((Button) actionEvent.getSource()).getText();
         log.debug("{} is pressed", buttonText);
@@ -181,7 +351,20 @@ public class GameController {
                 .playerName(playerName)
                 .solved(gameState.isWon())
                 .duration(Duration.between(startTime, Instant.now()))
+                .boardRows(gameState.getRownumber())
+                .boardColumns(gameState.getColnumber())
+                .boardMines(gameState.getMinenumber())
                 .build();
+        if (journal != null) {
+            result.setBoardId(journal.getBoardId().toString());
+            result.setJournal(journal.toByteArray());
+        }
+        if (gameState.isMinesplaced()) {
+            BoardMetrics metrics = BoardAnalyzer.analyze(gameState);
+            result.setBbbv(metrics.getBbbv());
+            result.setOpenings(metrics.getOpenings());
+            result.setIslands(metrics.getIslands());
+        }
         return result;
     }
 
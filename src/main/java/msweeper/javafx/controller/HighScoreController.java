@@ -1,5 +1,6 @@
 package msweeper.javafx.controller;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -16,8 +17,9 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DurationFormatUtils;
+import msweeper.results.BoardConfig;
 import msweeper.results.Result;
-import msweeper.results.ResultDao;
+import msweeper.results.LeaderboardCache;
 
 import javax.inject.Inject;
 import java.io.IOException;
@@ -26,6 +28,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 public class HighScoreController {
@@ -34,7 +37,8 @@ public class HighScoreController {
     private FXMLLoader fxmlLoader;
 
     @Inject
-    private ResultDao gameResultDao;
+    private LeaderboardCache leaderboardCache;
+
 
     @FXML
     private TableView<Result> highScoreTable;
@@ -48,11 +52,18 @@ public class HighScoreController {
     @FXML
     private TableColumn<Result, ZonedDateTime> created;
 
+    private final ObservableList<Result> observableResult = FXCollections.observableArrayList();
+
+    /**
+     * Refreshes the table when a result just saved, such as the one of the game just over, enters the leaderboard.
+     */
+    private final Consumer<BoardConfig> leaderboardListener = config -> {
+        if (config.equals(GameController.BOARD_CONFIG)) Platform.runLater(this::refresh);
+    };
+
     @FXML
     private void initialize() {
         log.debug("Loading high scores...");
-        List<Result> highScoreList = gameResultDao.findBest(10);
-
         player.setCellValueFactory(new PropertyValueFactory<>("playerName"));
         duration.setCellValueFactory(new PropertyValueFactory<>("duration"));
         created.setCellValueFactory(new PropertyValueFactory<>("created"));
@@ -88,15 +99,20 @@ public class HighScoreController {
             return cell;
         });
 
-        ObservableList<Result> observableResult = FXCollections.observableArrayList();
-        observableResult.addAll(highScoreList);
-
         highScoreTable.setItems(observableResult);
+        leaderboardCache.addListener(leaderboardListener);
+        refresh();
+    }
+
+    private void refresh() {
+        List<Result> highScoreList = leaderboardCache.getBest(GameController.BOARD_CONFIG);
+        observableResult.setAll(highScoreList);
     }
 
     public void handleRestartButton(ActionEvent actionEvent) throws IOException {
         log.debug("{} is pressed", ((Button) actionEvent.getSource()).getText());
         log.info("Loading launch scene...");
+        leaderboardCache.removeListener(leaderboardListener);
         fxmlLoader.setLocation(getClass().getResource("/fxml/launch.fxml"));
         Parent root = fxmlLoader.load();
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
@@ -0,0 +1,26 @@
+package msweeper.results;
+
+import lombok.Value;
+
+/**
+ * Class representing a board configuration, by which results are ranked separately.
+ */
+@Value
+public class BoardConfig {
+
+    /**
+     * The number of rows of the grid.
+     */
+    int rows;
+
+    /**
+     * The number of columns of the grid.
+     */
+    int columns;
+
+    /**
+     * The number of mines in the grid.
+     */
+    int mines;
+
+}
@@ -0,0 +1,152 @@
+package msweeper.results;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Class keeping the best results of each board configuration in memory, in front of {@link ResultDao}.
+ *
+ * <p>The first request for a configuration loads its {@value #SIZE} best results from the database. Afterwards
+ * the list is only updated by {@link #record(Result)} when a result has been saved, so showing the leaderboard
+ * does not query the database again. Each configuration is kept as a future of its list, published before the list
+ * is loaded and completed outside of the map, so loading does not hold up other configurations. A result recorded
+ * while the list is being loaded is chained to the future and added once the list has been loaded, rather than
+ * being missed by both. The lists are never modified, only replaced, so they can be read from any thread without
+ * locking. Listeners are told which configuration a saved result has entered the leaderboard of, on the thread which
+ * has saved it, or which has loaded the leaderboard if it was being loaded.</p>
+ */
+@Slf4j
+@Singleton
+public class LeaderboardCache {
+
+    /**
+     * The number of results kept for each board configuration.
+     */
+    public static final int SIZE = 10;
+
+    /**
+     * The order of {@link ResultDao#findBest(BoardConfig, Result, int)}: shortest first, then newest first.
+     */
+    static final Comparator<Result> RANKING = Comparator.comparing(Result::getDuration)
+            .thenComparing((a, b) -> b.getCreated().compareTo(a.getCreated()))
+            .thenComparing(Result::getId, Comparator.nullsFirst(Comparator.<Long>reverseOrder()));
+
+    private final ResultDao resultDao;
+
+    private final Map<BoardConfig, CompletableFuture<List<Result>>> leaderboards = new ConcurrentHashMap<>();
+
+    private final List<Consumer<BoardConfig>> listeners = new CopyOnWriteArrayList<>();
+
+    @Inject
+    public LeaderboardCache(ResultDao resultDao) {
+        this.resultDao = resultDao;
+    }
+
+    /**
+     * Returns the best results on a board configuration, loading them from the database if they are not cached.
+     *
+     * @param config the board configuration
+     * @return the unmodifiable list of at most {@value #SIZE} best results
+     */
+    public List<Result> getBest(BoardConfig config) {
+        CompletableFuture<List<Result>> best = leaderboards.get(config);
+        if (best == null) {
+            CompletableFuture<List<Result>> loading = new CompletableFuture<>();
+            best = leaderboards.putIfAbsent(config, loading);
+            if (best == null) {
+                load(config, loading);
+                best = loading;
+            }
+        }
+        try {
+            return leaderboards.getOrDefault(config, best).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the best results on a board configuration and completes the future published for them. If they cannot
+     * be loaded, the future is removed along with the results chained to it, so the next request tries again.
+     */
+    private void load(BoardConfig config, CompletableFuture<List<Result>> loading) {
+        log.debug("Loading leaderboard of {}...", config);
+        try {
+            loading.complete(Collections.unmodifiableList(new ArrayList<>(resultDao.findBest(config, null, SIZE))));
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            leaderboards.computeIfPresent(config, (key, best) -> best.isCompletedExceptionally() ? null : best);
+        }
+    }
+
+    /**
+     * Loads the best results on a board configuration in advance.
+     *
+     * @param config the board configuration
+     */
+    public void warm(BoardConfig config) {
+        getBest(config);
+    }
+
+    /**
+     * Adds a saved result to the leaderboard of its board configuration if it ranks among the best ones.
+     * Unsolved results and configurations not loaded yet are ignored, the latter will be read from the database
+     * along with the result. While the configuration is being loaded, the result is added once it has been.
+     *
+     * @param result the result saved
+     */
+    public void record(Result result) {
+        if (!result.isSolved()) return;
+        CompletableFuture<Boolean> inserted = new CompletableFuture<>();
+        leaderboards.computeIfPresent(result.getBoardConfig(), (config, future) -> future.thenApply(best -> {
+            List<Result> updated = insert(best, result);
+            inserted.complete(updated != best);
+            return updated;
+        }));
+        // Attached once the map has been updated, so listeners are not called while the entry is held
+        inserted.thenAccept(changed -> {
+            if (changed) listeners.forEach(listener -> listener.accept(result.getBoardConfig()));
+        });
+    }
+
+    /**
+     * Adds a listener to be told when a result enters the leaderboard of a board configuration.
+     *
+     * @param listener the listener, called with the board configuration
+     */
+    public void addListener(Consumer<BoardConfig> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added by {@link #addListener(Consumer)}.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(Consumer<BoardConfig> listener) {
+        listeners.remove(listener);
+    }
+
+    private static List<Result> insert(List<Result> best, Result result) {
+        int index = Collections.binarySearch(best, result, RANKING);
+        if (index >= 0 || -index - 1 >= SIZE) return best;
+        List<Result> updated = new ArrayList<>(best);
+        updated.add(-index - 1, result);
+        if (updated.size() > SIZE) updated.remove(SIZE);
+        return Collections.unmodifiableList(updated);
+    }
+
+}
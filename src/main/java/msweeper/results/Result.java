@@ -16,10 +16,22 @@ import java.time.ZonedDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_result_best",
+                columnList = "boardRows, boardColumns, boardMines, solved, duration, created DESC, id DESC"),
+        @Index(name = "idx_result_efficiency",
+                columnList = "boardRows, boardColumns, boardMines, solved, bbbvPerSecond DESC, created DESC, id DESC"),
+        @Index(name = "idx_result_best_overall", columnList = "solved, duration, created DESC")
+})
 public class Result {
 
+    /**
+     * The version of the schema of the results, to be increased whenever the mapping changes.
+     */
+    public static final int SCHEMA_VERSION = 1;
+
     @Id
     @GeneratedValue
     private Long id;
@@ -35,6 +47,21 @@ public class Result {
      */
     private boolean solved;
 
+    /**
+     * The number of rows of the grid.
+     */
+    private int boardRows;
+
+    /**
+     * The number of columns of the grid.
+     */
+    private int boardColumns;
+
+    /**
+     * The number of mines in the grid.
+     */
+    private int boardMines;
+
     /**
      * How long the game has taken.
      */
@@ -47,9 +74,52 @@ public class Result {
     @Column(nullable = false)
     private ZonedDateTime created;
 
+    /**
+     * The least number of reveals needed to clear the grid, its 3BV.
+     */
+    private int bbbv;
+
+    /**
+     * The number of openings in the grid.
+     */
+    private int openings;
+
+    /**
+     * The number of islands in the grid.
+     */
+    private int islands;
+
+    /**
+     * The 3BV of the grid divided by the duration of the game in seconds, computed when the result is saved.
+     */
+    private double bbbvPerSecond;
+
+    /**
+     * The string form of the identifier of the grid, or {@code null} if the grid cannot be generated again.
+     */
+    private String boardId;
+
+    /**
+     * The moves of the game, recorded by {@link msweeper.simulation.MoveJournal}, or {@code null} if they have not
+     * been recorded.
+     */
+    @Lob
+    private byte[] journal;
+
+    /**
+     * Returns the configuration of the grid of the game.
+     *
+     * @return the configuration of the grid
+     */
+    public BoardConfig getBoardConfig() {
+        return new BoardConfig(boardRows, boardColumns, boardMines);
+    }
+
     @PrePersist
     protected void onPersist() {
         created = ZonedDateTime.now();
+        long millis = duration.toMillis();
+        bbbvPerSecond = millis > 0 ? bbbv * 1000.0 / millis : 0;
     }
 
 }
@@ -3,6 +3,8 @@ package msweeper.results;
 import com.google.inject.persist.Transactional;
 import util.jpa.GenericJpaDao;
 
+import javax.persistence.TypedQuery;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 /**
@@ -10,6 +12,9 @@ import java.util.List;
  */
 public class ResultDao extends GenericJpaDao<Result>{
 
+    private static final String CONFIG_CONDITION =
+            "r.boardRows = :rows AND r.boardColumns = :columns AND r.boardMines = :mines";
+
     public ResultDao() {
         super(Result.class);
     }
@@ -25,9 +30,102 @@ public class ResultDao extends GenericJpaDao<Result>{
      */
     @Transactional
     public List<Result> findBest(int n) {
-        return entityManager.createQuery("SELECT r FROM Result r WHERE r.solved = true ORDER BY r.duration ASC, r.created DESC", Result.class)
+        return getEntityManager().createQuery("SELECT r FROM Result r WHERE r.solved = true"
+                        + " ORDER BY r.duration ASC, r.created DESC", Result.class)
+                .setMaxResults(n)
+                .getResultList();
+    }
+
+    /**
+     * Returns the list of {@code n} best results with respect to the efficiency
+     * of the player, the 3BV of the grid solved per second.
+     *
+     * @param n the maximum number of results to be returned
+     * @return the list of {@code n} best results with respect to the 3BV
+     * per second
+     */
+    @Transactional
+    public List<Result> findMostEfficient(int n) {
+        return getEntityManager().createQuery("SELECT r FROM Result r WHERE r.solved = true"
+                        + " ORDER BY r.bbbvPerSecond DESC, r.created DESC", Result.class)
                 .setMaxResults(n)
                 .getResultList();
     }
 
+    /**
+     * Returns a page of the best results on a board configuration with
+     * respect to the time spent for solving the puzzle. Pages are found
+     * from the last result of the previous page rather than skipped with an
+     * offset, so each page is read from the index as fast as the first one.
+     *
+     * @param config the board configuration
+     * @param after the last result of the previous page, or {@code null}
+     * for the first page
+     * @param n the maximum number of results to be returned
+     * @return the list of at most {@code n} results ranked after
+     * {@code after}
+     */
+    @Transactional
+    public List<Result> findBest(BoardConfig config, Result after, int n) {
+        String query = "SELECT r FROM Result r WHERE " + CONFIG_CONDITION + " AND r.solved = true"
+                + (after == null ? "" : " AND (r.duration > :duration OR r.duration = :duration"
+                + " AND (r.created < :created OR r.created = :created AND r.id < :id))")
+                + " ORDER BY r.duration ASC, r.created DESC, r.id DESC";
+        TypedQuery<Result> typedQuery = createConfigQuery(query, config);
+        if (after != null) {
+            typedQuery.setParameter("duration", after.getDuration())
+                    .setParameter("created", after.getCreated())
+                    .setParameter("id", after.getId());
+        }
+        return typedQuery.setMaxResults(n).getResultList();
+    }
+
+    /**
+     * Returns a page of the best results on a board configuration with
+     * respect to the 3BV of the grid solved per second, the same way as
+     * {@link #findBest(BoardConfig, Result, int)}.
+     *
+     * @param config the board configuration
+     * @param after the last result of the previous page, or {@code null}
+     * for the first page
+     * @param n the maximum number of results to be returned
+     * @return the list of at most {@code n} results ranked after
+     * {@code after}
+     */
+    @Transactional
+    public List<Result> findMostEfficient(BoardConfig config, Result after, int n) {
+        String query = "SELECT r FROM Result r WHERE " + CONFIG_CONDITION + " AND r.solved = true"
+                + (after == null ? "" : " AND (r.bbbvPerSecond < :efficiency OR r.bbbvPerSecond = :efficiency"
+                + " AND (r.created < :created OR r.created = :created AND r.id < :id))")
+                + " ORDER BY r.bbbvPerSecond DESC, r.created DESC, r.id DESC";
+        TypedQuery<Result> typedQuery = createConfigQuery(query, config);
+        if (after != null) {
+            typedQuery.setParameter("efficiency", after.getBbbvPerSecond())
+                    .setParameter("created", after.getCreated())
+                    .setParameter("id", after.getId());
+        }
+        return typedQuery.setMaxResults(n).getResultList();
+    }
+
+    /**
+     * Removes the results of the games not solved which have been saved
+     * before the specified time.
+     *
+     * @param before the time before which unsolved results are removed
+     * @return the number of results removed
+     */
+    @Transactional
+    public int removeUnsolved(ZonedDateTime before) {
+        return removeWhere((criteriaBuilder, root) -> criteriaBuilder.and(
+                criteriaBuilder.isFalse(root.get("solved")),
+                criteriaBuilder.lessThan(root.get("created"), before)));
+    }
+
+    private TypedQuery<Result> createConfigQuery(String query, BoardConfig config) {
+        return getEntityManager().createQuery(query, Result.class)
+                .setParameter("rows", config.getRows())
+                .setParameter("columns", config.getColumns())
+                .setParameter("mines", config.getMines());
+    }
+
 }
@@ -0,0 +1,67 @@
+package msweeper.results;
+
+import util.guice.SchemaMigration;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class holding the migrations of the schema of the results, by the version of {@link Result#SCHEMA_VERSION} they
+ * lead to.
+ */
+public class ResultMigrations {
+
+    /**
+     * The migrations of the schema of the results.
+     */
+    public static final Map<Integer, SchemaMigration> MIGRATIONS = Map.of(1, ResultMigrations::addBoardAndMetrics);
+
+    /**
+     * The statements adding the columns which cannot be null, introduced by version 1, to the results saved before.
+     * The games were all played on grids of 5 rows and 10 columns with 10 mines, whose metrics were not recorded.
+     */
+    private static final List<String> VERSION_1 = List.of(
+            "ALTER TABLE Result ADD COLUMN boardRows INTEGER DEFAULT 0 NOT NULL",
+            "ALTER TABLE Result ADD COLUMN boardColumns INTEGER DEFAULT 0 NOT NULL",
+            "ALTER TABLE Result ADD COLUMN boardMines INTEGER DEFAULT 0 NOT NULL",
+            "ALTER TABLE Result ADD COLUMN bbbv INTEGER DEFAULT 0 NOT NULL",
+            "ALTER TABLE Result ADD COLUMN openings INTEGER DEFAULT 0 NOT NULL",
+            "ALTER TABLE Result ADD COLUMN islands INTEGER DEFAULT 0 NOT NULL",
+            "ALTER TABLE Result ADD COLUMN bbbvPerSecond DOUBLE PRECISION DEFAULT 0 NOT NULL",
+            "UPDATE Result SET boardRows = 5, boardColumns = 10, boardMines = 10"
+    );
+
+    private ResultMigrations() {
+    }
+
+    /**
+     * Adds the configuration of the grid and its metrics to the results saved before they were recorded. The
+     * columns which can be null are left to the update from the entity mappings.
+     */
+    private static void addBoardAndMetrics(EntityManager entityManager) {
+        if (!hasResults(entityManager)) return;
+        entityManager.getTransaction().begin();
+        try {
+            for (String statement : VERSION_1) {
+                entityManager.createNativeQuery(statement).executeUpdate();
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+        }
+    }
+
+    private static boolean hasResults(EntityManager entityManager) {
+        try {
+            entityManager.createNativeQuery("SELECT COUNT(*) FROM Result").getSingleResult();
+            return true;
+        } catch (PersistenceException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+package msweeper.results;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.JDBCConnectionException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+import javax.persistence.QueryTimeoutException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Class saving results in the background, so the thread submitting them does not wait for the database.
+ *
+ * <p>Results are put into a bounded queue, drained by a daemon worker thread which saves them in batches of up to
+ * {@value #BATCH_SIZE}, each in a single transaction. A batch failing for a transient reason, such as a lost
+ * connection or a lock timeout, is tried again up to {@value #MAX_ATTEMPTS} times, waiting twice as long after each
+ * failure. A batch failing for any other reason is saved again one result at a time, so a single bad result does
+ * not take the others down with it. Results which still cannot be saved are logged and set aside, so the worker
+ * always moves on and submitting, from the FX thread at the end of a game, never waits. Saved results are passed
+ * on to the {@link LeaderboardCache}. {@link #flush(Duration)} waits until every submitted result has been handled,
+ * and {@link #close()} flushes and stops the worker.</p>
+ */
+@Slf4j
+@Singleton
+public class ResultWriter {
+
+    private static final int CAPACITY = 1024;
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final int MAX_ATTEMPTS = 4;
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(500);
+
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ResultDao resultDao;
+
+    private final LeaderboardCache leaderboardCache;
+
+    private final BlockingQueue<Result> queue = new ArrayBlockingQueue<>(CAPACITY);
+
+    private final long initialBackoff;
+
+    private final Thread worker;
+
+    /**
+     * The number of results submitted and not yet saved, guarded by {@code this}.
+     */
+    private int pending;
+
+    private volatile boolean closed;
+
+    @Inject
+    public ResultWriter(ResultDao resultDao, LeaderboardCache leaderboardCache) {
+        this(resultDao, leaderboardCache, INITIAL_BACKOFF);
+    }
+
+    ResultWriter(ResultDao resultDao, LeaderboardCache leaderboardCache, Duration initialBackoff) {
+        this.resultDao = resultDao;
+        this.leaderboardCache = leaderboardCache;
+        this.initialBackoff = initialBackoff.toMillis();
+        worker = new Thread(this::run, "result-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Submits a result to be saved. Returns at once; if {@value #CAPACITY} results are already waiting, the result
+     * is logged and set aside instead.
+     *
+     * @param result the result to save
+     * @return {@code true} if the result has been queued, {@code false} if it has been set aside
+     * @throws IllegalStateException if the writer is closed
+     */
+    public boolean submit(Result result) {
+        if (closed) throw new IllegalStateException("The result writer is closed");
+        synchronized (this) {
+            pending++;
+        }
+        if (queue.offer(result)) return true;
+        written(1);
+        log.error("Result queue is full, result set aside: {}", result);
+        return false;
+    }
+
+    /**
+     * Waits until every result submitted has been saved or set aside.
+     *
+     * @param timeout the longest time to wait
+     * @return {@code true} if every result has been handled, {@code false} if the time has run out or the thread
+     * has been interrupted
+     */
+    public synchronized boolean flush(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (pending > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+                wait(Math.max(1, left / 1_000_000));
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Saves the results still waiting and stops the worker. Results cannot be submitted afterwards.
+     */
+    public void close() {
+        closed = true;
+        if (!flush(CLOSE_TIMEOUT)) {
+            log.error("{} result(s) could not be saved before closing", getPending());
+        }
+        worker.interrupt();
+    }
+
+    /**
+     * Returns the number of results submitted and not yet saved.
+     *
+     * @return the number of results waiting
+     */
+    public synchronized int getPending() {
+        return pending;
+    }
+
+    private synchronized void written(int count) {
+        pending -= count;
+        notifyAll();
+    }
+
+    private void run() {
+        List<Result> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+                write(batch);
+                written(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (closed) return;
+            }
+        }
+    }
+
+    /**
+     * Saves a batch, falling back to saving its results one at a time if it fails for a reason other than a
+     * transient one, and setting aside the results which cannot be saved.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting to try again
+     */
+    private void write(List<Result> batch) throws InterruptedException {
+        RuntimeException failure = save(batch);
+        if (failure == null) return;
+        if (isTransient(failure) || batch.size() == 1) {
+            log.error("Cannot save {} result(s), set aside: {}", batch.size(), batch, failure);
+            return;
+        }
+        log.warn("Saving {} results failed, saving them one at a time", batch.size(), failure);
+        for (Result result : batch) {
+            failure = save(List.of(copy(result)));
+            if (failure != null) log.error("Cannot save result, set aside: {}", result, failure);
+        }
+    }
+
+    /**
+     * Saves results in a single transaction, trying again after transient failures. As a failed transaction may
+     * leave identifiers in the results it has been given, the results are only given to the first attempt; the
+     * next ones save copies of them.
+     *
+     * @return {@code null} if the results have been saved, otherwise the last failure
+     * @throws InterruptedException if the thread is interrupted while waiting to try again
+     */
+    private RuntimeException save(List<Result> results) throws InterruptedException {
+        List<Result> attempt = results;
+        long backoff = initialBackoff;
+        for (int count = 1; ; ++count) {
+            try {
+                resultDao.persistAll(attempt);
+                log.debug("{} result(s) saved", attempt.size());
+                attempt.forEach(leaderboardCache::record);
+                return null;
+            } catch (RuntimeException e) {
+                if (count == MAX_ATTEMPTS || !isTransient(e)) return e;
+                log.warn("Saving {} result(s) failed, retrying in {} ms", results.size(), backoff, e);
+                Thread.sleep(backoff);
+                backoff *= 2;
+                attempt = new ArrayList<>(results.size());
+                for (Result result : results) {
+                    attempt.add(copy(result));
+                }
+            }
+        }
+    }
+
+    private static Result copy(Result result) {
+        return result.toBuilder().id(null).build();
+    }
+
+    /**
+     * Returns whether a failure may go away by trying again: a lost connection, a timeout or a lock held by
+     * another transaction.
+     */
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException
+                    || cause instanceof JDBCConnectionException || cause instanceof LockTimeoutException
+                    || cause instanceof PessimisticLockException || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+            if (cause.getCause() == cause) break;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,98 @@
+package msweeper.simulation;
+
+import lombok.Value;
+import msweeper.state.MsweeperState;
+
+/**
+ * Class representing a move of a player on a square of the grid.
+ */
+@Value
+public class Move {
+
+    /**
+     * The kinds of moves.
+     */
+    public enum Type {
+        /**
+         * Revealing a square.
+         */
+        REVEAL,
+        /**
+         * Placing or removing a flag.
+         */
+        FLAG,
+        /**
+         * Revealing the squares around a satisfied number.
+         */
+        CHORD
+    }
+
+    /**
+     * The kind of the move.
+     */
+    Type type;
+
+    /**
+     * The x coordinate of the square.
+     */
+    int x;
+
+    /**
+     * The y coordinate of the square.
+     */
+    int y;
+
+    /**
+     * Creates a move revealing a square.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the new {@code Move} object
+     */
+    public static Move reveal(int x, int y) {
+        return new Move(Type.REVEAL, x, y);
+    }
+
+    /**
+     * Creates a move placing or removing a flag.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the new {@code Move} object
+     */
+    public static Move flag(int x, int y) {
+        return new Move(Type.FLAG, x, y);
+    }
+
+    /**
+     * Creates a move revealing the squares around a number.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the new {@code Move} object
+     */
+    public static Move chord(int x, int y) {
+        return new Move(Type.CHORD, x, y);
+    }
+
+    /**
+     * Makes the move on a state.
+     *
+     * @param state the state to make the move on
+     * @throws IllegalArgumentException if the square does not exist
+     */
+    public void apply(MsweeperState state) {
+        switch (type) {
+            case REVEAL:
+                state.reveal(x, y);
+                break;
+            case FLAG:
+                state.putFlag(x, y);
+                break;
+            case CHORD:
+                state.chord(x, y);
+                break;
+        }
+    }
+
+}
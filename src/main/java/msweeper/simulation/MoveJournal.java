@@ -0,0 +1,237 @@
+package msweeper.simulation;
+
+import lombok.Value;
+import msweeper.state.BoardId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class recording the moves of a game in a compact binary form, which can be replayed by {@link Replayer}.
+ *
+ * <p>A journal starts with a version byte and the string form of the {@link BoardId} of the grid, preceded by its
+ * length. Each move follows as two variable-length integers: the difference between the index of its square and
+ * that of the previous move, zigzag encoded and shifted left by two bits to hold the kind of the move, and the
+ * number of milliseconds since the previous move. Moves close to each other in place and time take two to four
+ * bytes.</p>
+ */
+public class MoveJournal {
+
+    private static final int VERSION = 1;
+
+    /**
+     * Class representing a move of a journal and when it has been made.
+     */
+    @Value
+    public static class Entry {
+
+        /**
+         * The move.
+         */
+        Move move;
+
+        /**
+         * The number of milliseconds between the start of the journal and the move.
+         */
+        long time;
+
+    }
+
+    /**
+     * The identifier of the grid the moves are made on.
+     */
+    private final BoardId boardId;
+
+    private final long start;
+
+    private byte[] bytes = new byte[64];
+    private int size;
+
+    private int moves;
+    private int lastindex;
+    private long lasttime;
+
+    /**
+     * Creates an empty {@code MoveJournal} object, whose times are measured from now.
+     *
+     * @param boardId the identifier of the grid the moves are made on
+     */
+    public MoveJournal(BoardId boardId) {
+        this(boardId, System.nanoTime());
+        byte[] id = boardId.toString().getBytes(StandardCharsets.US_ASCII);
+        bytes[size++] = VERSION;
+        putVarLong(id.length);
+        ensureCapacity(id.length);
+        System.arraycopy(id, 0, bytes, size, id.length);
+        size += id.length;
+    }
+
+    private MoveJournal(BoardId boardId, long start) {
+        this.boardId = boardId;
+        this.start = start;
+    }
+
+    /**
+     * Goes on with a journal, as when a saved game is resumed. The moves recorded from now on are timed as if the
+     * journal had been started {@code elapsed} ago, or at the last move if it is later, so the time the game has
+     * been put aside is left out.
+     *
+     * @param journal the binary form of the journal
+     * @param elapsed how long the game has been played
+     * @return the journal, holding the moves already made
+     * @throws IllegalArgumentException if the journal is not valid
+     */
+    public static MoveJournal resume(byte[] journal, Duration elapsed) {
+        Decoded decoded = decode(journal);
+        List<Entry> entries = decoded.getEntries();
+        Entry last = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+        long lasttime = last == null ? 0 : last.getTime();
+        MoveJournal resumed = new MoveJournal(decoded.getBoardId(),
+                System.nanoTime() - Math.max(elapsed.toMillis(), lasttime) * 1_000_000);
+        resumed.bytes = Arrays.copyOf(journal, Math.max(journal.length, 64));
+        resumed.size = journal.length;
+        resumed.moves = entries.size();
+        if (last != null) {
+            resumed.lastindex = last.getMove().getX() * resumed.boardId.getColumns() + last.getMove().getY();
+        }
+        resumed.lasttime = lasttime;
+        return resumed;
+    }
+
+    /**
+     * Records a move made now.
+     *
+     * @param move the move
+     */
+    public void record(Move move) {
+        record(move, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Records a move made at the specified time.
+     *
+     * @param move the move
+     * @param time the number of milliseconds between the start of the journal and the move
+     * @throws IllegalArgumentException if the move is earlier than the previous one
+     */
+    public void record(Move move, long time) {
+        if (time < lasttime) throw new IllegalArgumentException();
+        int index = move.getX() * boardId.getColumns() + move.getY();
+        long delta = index - lastindex;
+        putVarLong((delta << 1 ^ delta >> 63) << 2 | move.getType().ordinal());
+        putVarLong(time - lasttime);
+        lastindex = index;
+        lasttime = time;
+        moves++;
+    }
+
+    /**
+     * Returns the identifier of the grid the moves are made on.
+     *
+     * @return the identifier of the grid
+     */
+    public BoardId getBoardId() {
+        return boardId;
+    }
+
+    /**
+     * Returns the number of moves recorded.
+     *
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Returns the binary form of the journal.
+     *
+     * @return a new array holding the journal
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Decodes the binary form of a journal.
+     *
+     * @param journal the binary form of the journal
+     * @return the identifier of the grid, and the moves of the journal
+     * @throws IllegalArgumentException if the journal is not valid
+     */
+    public static Decoded decode(byte[] journal) {
+        try {
+            int[] position = {0};
+            if (journal[position[0]++] != VERSION) throw new IllegalArgumentException("Unsupported journal version");
+            int length = (int) getVarLong(journal, position);
+            BoardId boardId = BoardId.parse(new String(journal, position[0], length, StandardCharsets.US_ASCII));
+            position[0] += length;
+            List<Entry> entries = new ArrayList<>();
+            Move.Type[] types = Move.Type.values();
+            long index = 0;
+            long time = 0;
+            while (position[0] < journal.length) {
+                long value = getVarLong(journal, position);
+                long zigzag = value >>> 2;
+                index += zigzag >>> 1 ^ -(zigzag & 1);
+                time += getVarLong(journal, position);
+                if ((value & 3) >= types.length || index < 0
+                        || index >= (long) boardId.getRows() * boardId.getColumns() || time < 0) {
+                    throw new IllegalArgumentException();
+                }
+                int x = (int) (index / boardId.getColumns());
+                int y = (int) (index % boardId.getColumns());
+                entries.add(new Entry(new Move(types[(int) (value & 3)], x, y), time));
+            }
+            return new Decoded(boardId, Collections.unmodifiableList(entries));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid journal", e);
+        }
+    }
+
+    /**
+     * Class representing a decoded journal.
+     */
+    @Value
+    public static class Decoded {
+
+        /**
+         * The identifier of the grid the moves are made on.
+         */
+        BoardId boardId;
+
+        /**
+         * The moves, in the order they have been made.
+         */
+        List<Entry> entries;
+
+    }
+
+    private void putVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    private static long getVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException();
+    }
+
+    private void ensureCapacity(int extra) {
+        if (bytes.length - size < extra) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+    }
+
+}
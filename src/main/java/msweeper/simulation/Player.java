@@ -0,0 +1,30 @@
+package msweeper.simulation;
+
+import msweeper.state.MsweeperState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Interface of the strategies playing games in a {@link Simulator}. A new player is created for each game, so
+ * players may keep what they know about their game.
+ */
+public interface Player {
+
+    /**
+     * Called once before the first move of a game.
+     *
+     * @param state  the state of the game
+     * @param random the random number generator of the game, for players which need one
+     */
+    default void start(MsweeperState state, SplittableRandom random) {
+    }
+
+    /**
+     * Chooses the next move of a game which is not over.
+     *
+     * @param state the state of the game
+     * @return the next move
+     */
+    Move nextMove(MsweeperState state);
+
+}
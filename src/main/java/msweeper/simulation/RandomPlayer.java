@@ -0,0 +1,29 @@
+package msweeper.simulation;
+
+import msweeper.state.MsweeperState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Player revealing hidden squares chosen at random, never placing flags.
+ */
+public class RandomPlayer implements Player {
+
+    private SplittableRandom random;
+
+    @Override
+    public void start(MsweeperState state, SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public Move nextMove(MsweeperState state) {
+        int size = state.getRownumber() * state.getColnumber();
+        int index = random.nextInt(size);
+        while (state.isRevealed(index / state.getColnumber(), index % state.getColnumber())) {
+            index = index + 1 == size ? 0 : index + 1;
+        }
+        return Move.reveal(index / state.getColnumber(), index % state.getColnumber());
+    }
+
+}
@@ -0,0 +1,50 @@
+package msweeper.simulation;
+
+import lombok.Value;
+import msweeper.state.MsweeperState;
+
+import java.time.Duration;
+
+/**
+ * Class representing the outcome of replaying a journal with {@link Replayer}.
+ */
+@Value
+public class Replay {
+
+    /**
+     * The state of the game after the last move.
+     */
+    MsweeperState state;
+
+    /**
+     * The number of moves replayed.
+     */
+    int moves;
+
+    /**
+     * The time between the start of the journal and its last move.
+     */
+    Duration duration;
+
+    /**
+     * Checks whether the replayed game has been won.
+     *
+     * @return {@code true} if the game has been won, {@code false} otherwise
+     */
+    public boolean isWon() {
+        return state.isWon() && !state.isLost();
+    }
+
+    /**
+     * Checks whether the replay confirms a claimed outcome: a solved game must have been won by the moves, an
+     * unsolved one must not, and the claimed duration must not be shorter than the time the moves have taken.
+     *
+     * @param solved   whether the game is claimed to have been solved
+     * @param duration the claimed duration of the game
+     * @return {@code true} if the replay confirms the claim, {@code false} otherwise
+     */
+    public boolean confirms(boolean solved, Duration duration) {
+        return solved == isWon() && duration.compareTo(this.duration) >= 0;
+    }
+
+}
@@ -0,0 +1,50 @@
+package msweeper.simulation;
+
+import msweeper.state.GameListener;
+import msweeper.state.MsweeperState;
+
+import java.time.Duration;
+
+/**
+ * Class replaying the games recorded by {@link MoveJournal} on a fresh grid created from their
+ * {@link msweeper.state.BoardId}.
+ */
+public class Replayer {
+
+    private Replayer() {
+    }
+
+    /**
+     * Replays a journal as fast as possible.
+     *
+     * @param journal the binary form of the journal
+     * @return the outcome of the replay
+     * @throws IllegalArgumentException if the journal is not valid, or if it has moves after the end of the game
+     */
+    public static Replay replay(byte[] journal) {
+        return replay(journal, null);
+    }
+
+    /**
+     * Replays a journal as fast as possible, notifying a listener of the events of the game, so the replay can be
+     * shown. The listener is added before the first move.
+     *
+     * @param journal  the binary form of the journal
+     * @param listener the listener to notify, or {@code null}
+     * @return the outcome of the replay
+     * @throws IllegalArgumentException if the journal is not valid, or if it has moves after the end of the game
+     */
+    public static Replay replay(byte[] journal, GameListener listener) {
+        MoveJournal.Decoded decoded = MoveJournal.decode(journal);
+        MsweeperState state = decoded.getBoardId().createState();
+        if (listener != null) state.addListener(listener);
+        long time = 0;
+        for (MoveJournal.Entry entry : decoded.getEntries()) {
+            if (state.isWon() || state.isLost()) throw new IllegalArgumentException("Move after the end of the game");
+            entry.getMove().apply(state);
+            time = entry.getTime();
+        }
+        return new Replay(state, decoded.getEntries().size(), Duration.ofMillis(time));
+    }
+
+}
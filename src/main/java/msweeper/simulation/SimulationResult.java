@@ -0,0 +1,155 @@
+package msweeper.simulation;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Class representing the outcome of a batch of games played on grids of the same size and number of mines.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class SimulationResult {
+
+    /**
+     * The name of the player which has played the games.
+     */
+    private final String player;
+
+    /**
+     * The number of rows in the grids.
+     */
+    private final int rownumber;
+
+    /**
+     * The number of columns in the grids.
+     */
+    private final int colnumber;
+
+    /**
+     * The number of mines in the grids.
+     */
+    private final int minenumber;
+
+    /**
+     * The number of games played.
+     */
+    private final long games;
+
+    /**
+     * The number of games won.
+     */
+    private final long wins;
+
+    /**
+     * The time taken to play the games, in nanoseconds.
+     */
+    @Getter(AccessLevel.NONE)
+    private final long nanos;
+
+    /**
+     * The number of games by their number of moves.
+     */
+    @Getter(AccessLevel.NONE)
+    private final long[] moves;
+
+    /**
+     * Returns the ratio of the number of mines to the number of squares.
+     *
+     * @return the density of the mines
+     */
+    public double getDensity() {
+        return (double) minenumber / ((long) rownumber * colnumber);
+    }
+
+    /**
+     * Returns the ratio of the games won to the games played.
+     *
+     * @return the win rate, or 0 if no game has been played
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Returns the number of games played per second.
+     *
+     * @return the throughput of the simulation
+     */
+    public double getGamesPerSecond() {
+        return nanos == 0 ? 0 : games * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the number of games which have taken a number of moves.
+     *
+     * @param count the number of moves
+     * @return the number of games with that many moves
+     */
+    public long getGames(int count) {
+        return count >= 0 && count < moves.length ? moves[count] : 0;
+    }
+
+    /**
+     * Returns the largest number of moves taken by a game.
+     *
+     * @return the largest number of moves, or 0 if no game has been played
+     */
+    public int getMaxMoves() {
+        for (int i = moves.length - 1; i > 0; --i) {
+            if (moves[i] > 0) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the mean number of moves per game.
+     *
+     * @return the mean number of moves, or 0 if no game has been played
+     */
+    public double getMeanMoves() {
+        long total = 0;
+        for (int i = 0; i < moves.length; ++i) {
+            total += i * moves[i];
+        }
+        return games == 0 ? 0 : (double) total / games;
+    }
+
+    /**
+     * Returns the number of moves which at least a fraction of the games have not exceeded.
+     *
+     * @param p the fraction of the games, between 0 and 1
+     * @return the number of moves
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1
+     */
+    public int getMovesPercentile(double p) {
+        if (p < 0 || p > 1) throw new IllegalArgumentException();
+        long needed = (long) Math.ceil(p * games);
+        long seen = 0;
+        for (int i = 0; i < moves.length; ++i) {
+            seen += moves[i];
+            if (seen >= needed && seen > 0) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of games by their number of moves.
+     *
+     * @return a copy of the histogram, indexed by the number of moves
+     */
+    public long[] getMovesHistogram() {
+        return Arrays.copyOf(moves, getMaxMoves() + 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %dx%d/%d (%.1f%%): %d games, %.2f%% won, %.0f games/s, moves mean %.1f p50 %d p99 %d max %d",
+                player, rownumber, colnumber, minenumber, getDensity() * 100, games, getWinRate() * 100,
+                getGamesPerSecond(), getMeanMoves(), getMovesPercentile(0.5), getMovesPercentile(0.99),
+                getMaxMoves());
+    }
+
+}
@@ -0,0 +1,155 @@
+package msweeper.simulation;
+
+import lombok.Getter;
+import msweeper.state.MsweeperState;
+import msweeper.state.SafeStart;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Class playing batches of games without the user interface, driving {@link MsweeperState} objects directly
+ * with a {@link Player} strategy.
+ *
+ * <p>Games are played in parallel on the common fork-join pool. Each game has its own seed, drawn in order from
+ * the seed of the batch, which places its mines and seeds the random number generator of its player, so a batch
+ * has the same outcome for the same seed however many threads play it.</p>
+ */
+public class Simulator {
+
+    /**
+     * The name of the player, used in the results.
+     */
+    @Getter
+    private final String name;
+
+    private final Supplier<? extends Player> players;
+
+    /**
+     * How the first square revealed is kept safe, or {@code null} if it is not.
+     */
+    @Getter
+    private final SafeStart safeStart;
+
+    /**
+     * Creates a {@code Simulator} object keeping the first square revealed free of mines, the same way as the game.
+     *
+     * @param name    the name of the player
+     * @param players creates a new player for each game
+     */
+    public Simulator(String name, Supplier<? extends Player> players) {
+        this(name, players, SafeStart.SQUARE);
+    }
+
+    /**
+     * Creates a {@code Simulator} object.
+     *
+     * @param name      the name of the player
+     * @param players   creates a new player for each game
+     * @param safeStart how the first square revealed is kept safe, or {@code null} if the mines are placed
+     *                  before the first move
+     */
+    public Simulator(String name, Supplier<? extends Player> players, SafeStart safeStart) {
+        this.name = name;
+        this.players = players;
+        this.safeStart = safeStart;
+    }
+
+    /**
+     * Plays a batch of games.
+     *
+     * @param rows    the number of rows in the grids
+     * @param columns the number of columns in the grids
+     * @param mines   the number of mines in the grids
+     * @param games   the number of games to play
+     * @param seed    the seed of the batch
+     * @return the outcome of the games
+     * @throws IllegalArgumentException if the grids cannot be created, or if the number of games is negative
+     */
+    public SimulationResult run(int rows, int columns, int mines, int games, long seed) {
+        if (games < 0) throw new IllegalArgumentException();
+        createState(rows, columns, mines, seed);
+        long[] seeds = new SplittableRandom(seed).longs(games).toArray();
+        long start = System.nanoTime();
+        Tally tally = IntStream.range(0, games).parallel()
+                .collect(Tally::new, (t, i) -> t.add(play(rows, columns, mines, seeds[i])), Tally::combine);
+        long nanos = System.nanoTime() - start;
+        return new SimulationResult(name, rows, columns, mines, tally.games, tally.wins, nanos,
+                Arrays.copyOf(tally.moves, tally.moves.length));
+    }
+
+    /**
+     * Plays one game.
+     *
+     * @return the number of moves of the game, negated and minus one if the game has been lost
+     */
+    private int play(int rows, int columns, int mines, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        MsweeperState state = createState(rows, columns, mines, random.nextLong());
+        Player player = players.get();
+        player.start(state, random);
+        int maxmoves = 2 * rows * columns;
+        int moves = 0;
+        while (!state.isWon() && !state.isLost()) {
+            if (moves == maxmoves) throw new IllegalStateException("The player makes no progress");
+            player.nextMove(state).apply(state);
+            moves++;
+        }
+        return state.isLost() ? -moves - 1 : moves;
+    }
+
+    private MsweeperState createState(int rows, int columns, int mines, long seed) {
+        return safeStart == null ? new MsweeperState(rows, columns, mines, seed)
+                : new MsweeperState(rows, columns, mines, safeStart, seed);
+    }
+
+    /**
+     * The outcome of the games played by one thread.
+     */
+    private static class Tally {
+
+        private long games;
+        private long wins;
+        private long[] moves = new long[64];
+
+        private void add(int outcome) {
+            games++;
+            if (outcome >= 0) wins++;
+            int count = outcome >= 0 ? outcome : -outcome - 1;
+            if (count >= moves.length) moves = Arrays.copyOf(moves, Math.max(count + 1, 2 * moves.length));
+            moves[count]++;
+        }
+
+        private void combine(Tally other) {
+            games += other.games;
+            wins += other.wins;
+            if (other.moves.length > moves.length) moves = Arrays.copyOf(moves, other.moves.length);
+            for (int i = 0; i < other.moves.length; ++i) {
+                moves[i] += other.moves[i];
+            }
+        }
+
+    }
+
+    /**
+     * Plays batches of games on the usual grid sizes with each player, and prints the outcomes.
+     *
+     * @param args the number of games per batch, 10000 by default
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int[][] configurations = {{9, 9, 10}, {16, 16, 40}, {16, 30, 99}};
+        Simulator[] simulators = {
+                new Simulator("random", RandomPlayer::new),
+                new Simulator("solver", SolverPlayer::new)
+        };
+        for (Simulator simulator : simulators) {
+            for (int[] configuration : configurations) {
+                System.out.println(simulator.run(configuration[0], configuration[1], configuration[2], games, 1L));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package msweeper.simulation;
+
+import msweeper.solver.BoardSolver;
+import msweeper.solver.Square;
+import msweeper.state.MsweeperState;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * Player revealing the squares a {@link BoardSolver} proves safe, and guessing a hidden square not known to be
+ * mined at random when there are none.
+ */
+public class SolverPlayer implements Player {
+
+    private SplittableRandom random;
+
+    private BoardSolver solver;
+
+    private final Deque<Square> safes = new ArrayDeque<>();
+
+    @Override
+    public void start(MsweeperState state, SplittableRandom random) {
+        this.random = random;
+        solver = BoardSolver.attach(state);
+    }
+
+    @Override
+    public Move nextMove(MsweeperState state) {
+        if (safes.isEmpty()) {
+            solver.solve();
+            safes.addAll(solver.getSafeSquares());
+        }
+        while (!safes.isEmpty()) {
+            Square square = safes.poll();
+            if (!state.isRevealed(square.getX(), square.getY())) return Move.reveal(square.getX(), square.getY());
+        }
+        return guess(state);
+    }
+
+    private Move guess(MsweeperState state) {
+        int size = state.getRownumber() * state.getColnumber();
+        int start = random.nextInt(size);
+        int index = start;
+        do {
+            int x = index / state.getColnumber();
+            int y = index % state.getColnumber();
+            if (!state.isRevealed(x, y) && !solver.isMine(x, y)) return Move.reveal(x, y);
+            index = index + 1 == size ? 0 : index + 1;
+        } while (index != start);
+        return Move.reveal(start / state.getColnumber(), start % state.getColnumber());
+    }
+
+}
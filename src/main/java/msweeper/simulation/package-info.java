@@ -0,0 +1,4 @@
+/**
+ * Provides classes for playing games without the user interface, to measure the engine and compare strategies.
+ */
+package msweeper.simulation;
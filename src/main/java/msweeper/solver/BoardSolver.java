@@ -0,0 +1,409 @@
+package msweeper.solver;
+
+import msweeper.state.ChangeSet;
+import msweeper.state.GameListener;
+import msweeper.state.MsweeperState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class finding the squares which are provably safe or provably mined, from what the player can see of the grid,
+ * encoded the same way as in {@link MsweeperState#displayGrid()}. Flags are treated as hidden squares, as they
+ * are not proof of anything.
+ *
+ * <p>Two rules are applied until neither finds anything new. The single square rule looks at one revealed number:
+ * if its remaining mines are zero, its hidden neighbours are safe, and if they equal its hidden neighbours, they are
+ * all mines. The overlap rule looks at two numbers sharing hidden neighbours: if the remaining mines of the second
+ * minus those of the first equal the number of hidden neighbours only the second has, those are all mines and the
+ * ones only the first has are safe, and the same holds the other way round.</p>
+ *
+ * <p>The revealed numbers which still have undecided neighbours form the frontier, which is kept up to date as
+ * squares change. Both rules are driven by worklists: a number is only looked at again when a square around it has
+ * been revealed or decided, and the overlap rule is only applied to the pairs such a number is part of, so each
+ * deduction costs work proportional to the area it has changed. As a {@link GameListener} the solver follows the
+ * changes of the state it listens to.</p>
+ */
+public class BoardSolver implements GameListener {
+
+    private static final byte UNDECIDED = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+
+    private final int rownumber;
+    private final int colnumber;
+
+    /**
+     * What the player sees of each square, row by row.
+     */
+    private final int[] view;
+
+    /**
+     * What has been deduced about each hidden square.
+     */
+    private final byte[] deduced;
+
+    /**
+     * Indicates which squares are on the frontier.
+     */
+    private final boolean[] onfrontier;
+
+    /**
+     * The squares on the frontier, possibly with squares which have left it since, in its first
+     * {@link #frontiersize} elements.
+     */
+    private int[] frontier = new int[16];
+    private int frontiersize;
+
+    /**
+     * The revealed numbers to apply the single square rule to, in its first {@link #worksize} elements.
+     */
+    private int[] work = new int[16];
+    private int worksize;
+    private final boolean[] queued;
+
+    /**
+     * The frontier numbers to apply the overlap rule to, paired with the frontier numbers around them, in its first
+     * {@link #pairworksize} elements.
+     */
+    private int[] pairwork = new int[16];
+    private int pairworksize;
+    private final boolean[] pairqueued;
+
+    /**
+     * The squares deduced to be safe or mined, in the order they have been deduced.
+     */
+    private int[] safes = new int[16];
+    private int safesize;
+    private int[] mines = new int[16];
+    private int minesize;
+
+    private final int[] first = new int[8];
+    private final int[] second = new int[8];
+
+    /**
+     * Creates a {@code BoardSolver} object.
+     *
+     * @param grid what the player sees of each square, encoded the same way as in {@link MsweeperState#displayGrid()}
+     * @throws IllegalArgumentException if the grid is empty or not rectangular
+     */
+    public BoardSolver(int[][] grid) {
+        if (grid.length == 0 || grid[0].length == 0) throw new IllegalArgumentException();
+        rownumber = grid.length;
+        colnumber = grid[0].length;
+        view = new int[rownumber * colnumber];
+        deduced = new byte[view.length];
+        onfrontier = new boolean[view.length];
+        queued = new boolean[view.length];
+        pairqueued = new boolean[view.length];
+        for (int i = 0; i < rownumber; ++i) {
+            if (grid[i].length != colnumber) throw new IllegalArgumentException();
+            for (int j = 0; j < colnumber; ++j) {
+                view[i * colnumber + j] = grid[i][j];
+                if (grid[i][j] > 2) enqueue(i * colnumber + j);
+            }
+        }
+    }
+
+    /**
+     * Creates a {@code BoardSolver} object for a state, and adds it to the listeners of the state.
+     *
+     * @param state the state to solve
+     * @return the new {@code BoardSolver} object
+     */
+    public static BoardSolver attach(MsweeperState state) {
+        BoardSolver solver = new BoardSolver(state.displayGrid());
+        state.addListener(solver);
+        return solver;
+    }
+
+    @Override
+    public void squaresRevealed(MsweeperState state, ChangeSet changes) {
+        for (int i = 0; i < changes.size(); ++i) {
+            int x = changes.getX(i);
+            int y = changes.getY(i);
+            update(x, y, state.displayValue(x, y));
+        }
+    }
+
+    /**
+     * Updates what the player sees of a square. A revealed number may also change, when a mine around it has been
+     * moved, and is then looked at again; what has been deduced stays valid as long as the squares deduced keep
+     * their content.
+     *
+     * @param x     the x coordinate of the square
+     * @param y     the y coordinate of the square
+     * @param value what the player sees of the square, encoded the same way as in
+     *              {@link MsweeperState#displayGrid()}
+     */
+    public void update(int x, int y, int value) {
+        int index = x * colnumber + y;
+        int previous = view[index];
+        view[index] = value;
+        if (value > 1 && previous <= 1) {
+            if (value > 2) enqueue(index);
+            enqueueNeighbours(index);
+        } else if (value > 2 && value != previous) {
+            enqueue(index);
+        }
+    }
+
+    /**
+     * Applies the rules until neither of them finds anything new.
+     *
+     * @return {@code true} if anything new has been found, {@code false} otherwise
+     */
+    public boolean solve() {
+        int before = safesize + minesize;
+        while (true) {
+            while (worksize > 0) {
+                int index = work[--worksize];
+                queued[index] = false;
+                applySingleRule(index);
+            }
+            if (pairworksize == 0) break;
+            int index = pairwork[--pairworksize];
+            pairqueued[index] = false;
+            if (onfrontier[index]) applyOverlapRule(index);
+        }
+        return safesize + minesize > before;
+    }
+
+    private void applySingleRule(int index) {
+        int remaining = remainingMines(index);
+        int count = undecidedNeighbours(index, first);
+        if (count == 0) {
+            onfrontier[index] = false;
+        } else if (remaining == 0) {
+            decideAll(first, count, SAFE);
+        } else if (remaining == count) {
+            decideAll(first, count, MINE);
+        } else {
+            if (!onfrontier[index]) {
+                onfrontier[index] = true;
+                if (frontiersize == frontier.length) frontier = Arrays.copyOf(frontier, frontiersize * 2);
+                frontier[frontiersize++] = index;
+            }
+            if (!pairqueued[index]) {
+                pairqueued[index] = true;
+                if (pairworksize == pairwork.length) pairwork = Arrays.copyOf(pairwork, pairworksize * 2);
+                pairwork[pairworksize++] = index;
+            }
+        }
+    }
+
+    /**
+     * Applies the overlap rule to the pairs a frontier number forms with the frontier numbers at most two squares
+     * apart, stopping at the first pair it finds something for. The squares decided then queue the numbers around
+     * them again, this one included, so the pairs left are looked at once the single square rule is done with them.
+     *
+     * @param a the frontier number
+     */
+    private void applyOverlapRule(int a) {
+        int ax = a / colnumber;
+        int ay = a % colnumber;
+        for (int bx = Math.max(ax - 2, 0); bx <= Math.min(ax + 2, rownumber - 1); ++bx) {
+            for (int by = Math.max(ay - 2, 0); by <= Math.min(ay + 2, colnumber - 1); ++by) {
+                int b = bx * colnumber + by;
+                if (b != a && onfrontier[b] && applyOverlapRule(a, b)) return;
+            }
+        }
+    }
+
+    private boolean applyOverlapRule(int a, int b) {
+        int firstcount = undecidedNeighbours(a, first);
+        int secondcount = undecidedNeighbours(b, second);
+        int shared = 0;
+        for (int i = 0; i < firstcount; ++i) {
+            for (int j = 0; j < secondcount; ++j) {
+                if (first[i] == second[j]) shared++;
+            }
+        }
+        int onlyfirst = firstcount - shared;
+        int onlysecond = secondcount - shared;
+        if (shared == 0 || onlyfirst + onlysecond == 0) return false;
+        int difference = remainingMines(b) - remainingMines(a);
+        byte firstdecision;
+        byte seconddecision;
+        if (difference == onlysecond) {
+            firstdecision = SAFE;
+            seconddecision = MINE;
+        } else if (difference == -onlyfirst) {
+            firstdecision = MINE;
+            seconddecision = SAFE;
+        } else return false;
+        for (int i = 0; i < firstcount; ++i) {
+            if (!contains(second, secondcount, first[i])) decide(first[i], firstdecision);
+        }
+        for (int j = 0; j < secondcount; ++j) {
+            if (!contains(first, firstcount, second[j])) decide(second[j], seconddecision);
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] squares, int count, int square) {
+        for (int i = 0; i < count; ++i) {
+            if (squares[i] == square) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of mines around a revealed number which are not yet known.
+     */
+    private int remainingMines(int index) {
+        int remaining = view[index] - 3;
+        int x = index / colnumber;
+        int y = index % colnumber;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                int neighbour = i * colnumber + j;
+                if (view[neighbour] == 2 || deduced[neighbour] == MINE) remaining--;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Collects the hidden neighbours of a square which are neither known to be safe nor mined.
+     *
+     * @return the number of squares collected
+     */
+    private int undecidedNeighbours(int index, int[] squares) {
+        int count = 0;
+        int x = index / colnumber;
+        int y = index % colnumber;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                int neighbour = i * colnumber + j;
+                if (view[neighbour] < 2 && deduced[neighbour] == UNDECIDED) squares[count++] = neighbour;
+            }
+        }
+        return count;
+    }
+
+    private void decideAll(int[] squares, int count, byte decision) {
+        for (int i = 0; i < count; ++i) {
+            decide(squares[i], decision);
+        }
+    }
+
+    private void decide(int index, byte decision) {
+        deduced[index] = decision;
+        if (decision == SAFE) {
+            if (safesize == safes.length) safes = Arrays.copyOf(safes, safesize * 2);
+            safes[safesize++] = index;
+        } else {
+            if (minesize == mines.length) mines = Arrays.copyOf(mines, minesize * 2);
+            mines[minesize++] = index;
+        }
+        enqueueNeighbours(index);
+    }
+
+    private void enqueue(int index) {
+        if (queued[index]) return;
+        queued[index] = true;
+        if (worksize == work.length) work = Arrays.copyOf(work, worksize * 2);
+        work[worksize++] = index;
+    }
+
+    private void enqueueNeighbours(int index) {
+        int x = index / colnumber;
+        int y = index % colnumber;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                int neighbour = i * colnumber + j;
+                if (view[neighbour] > 2) enqueue(neighbour);
+            }
+        }
+    }
+
+    /**
+     * Returns the hidden squares found to be safe, which have not been revealed since.
+     *
+     * @return the list of hidden squares found to be safe
+     */
+    public List<Square> getSafeSquares() {
+        int kept = 0;
+        for (int i = 0; i < safesize; ++i) {
+            if (view[safes[i]] < 2) safes[kept++] = safes[i];
+        }
+        safesize = kept;
+        return toSquares(safes, safesize);
+    }
+
+    /**
+     * Returns the hidden squares found to be mined.
+     *
+     * @return the list of hidden squares found to be mined
+     */
+    public List<Square> getMines() {
+        return toSquares(mines, minesize);
+    }
+
+    private List<Square> toSquares(int[] indices, int size) {
+        List<Square> squares = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            squares.add(new Square(indices[i] / colnumber, indices[i] % colnumber));
+        }
+        return squares;
+    }
+
+    /**
+     * Checks whether a square has been found to be safe, or has been revealed without a mine.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return {@code true} if the square is known to be safe, {@code false} otherwise
+     */
+    public boolean isSafe(int x, int y) {
+        int index = x * colnumber + y;
+        return deduced[index] == SAFE || view[index] > 2;
+    }
+
+    /**
+     * Checks whether a square has been found to be mined, or has been revealed with a mine.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return {@code true} if the square is known to be mined, {@code false} otherwise
+     */
+    public boolean isMine(int x, int y) {
+        int index = x * colnumber + y;
+        return deduced[index] == MINE || view[index] == 2;
+    }
+
+    /**
+     * Returns the number of revealed numbers which still have hidden neighbours not known to be safe or mined.
+     *
+     * @return the size of the frontier
+     */
+    public int getFrontierSize() {
+        int kept = 0;
+        for (int i = 0; i < frontiersize; ++i) {
+            if (onfrontier[frontier[i]]) frontier[kept++] = frontier[i];
+        }
+        frontiersize = kept;
+        return frontiersize;
+    }
+
+    /**
+     * Returns the number of rows in the grid.
+     *
+     * @return the number of rows in the grid
+     */
+    public int getRownumber() {
+        return rownumber;
+    }
+
+    /**
+     * Returns the number of columns in the grid.
+     *
+     * @return the number of columns in the grid
+     */
+    public int getColnumber() {
+        return colnumber;
+    }
+
+}
@@ -0,0 +1,276 @@
+package msweeper.solver;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import msweeper.state.BoardId;
+import msweeper.state.MsweeperState;
+import msweeper.state.SafeStart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Class generating grids which can be solved from a given first reveal without guessing.
+ *
+ * <p>A candidate grid is placed by {@link MsweeperState} from a seed, keeping the first square and the squares
+ * around it free of mines, and played with a {@link BoardSolver}, revealing every square it proves safe. When the
+ * solver finds nothing more, the squares whose probability of being mined is zero according to a
+ * {@link ProbabilityCalculator} are revealed, which also accounts for the number of mines left. When no square is
+ * safe, a mine whose square is undecided, preferably next to the revealed area, is moved to an undecided square,
+ * preferably away from the revealed area, and the game goes on from where it is stuck, the solver only looking
+ * again at the numbers the move has changed. As the earlier reveals may have relied on numbers the repairs have
+ * changed, a repaired grid is played once more from the first square before it is accepted. Candidates are only
+ * thrown away when too many repairs have not helped.</p>
+ *
+ * <p>Every grid carries a {@link BoardId} naming its seed, its first square and the mines moved, so it can be
+ * generated again, journaled and replayed like any other grid.</p>
+ *
+ * <p>Batches are generated on the common fork-join pool, each grid from its own random number generator split from
+ * the seed of the batch, so a batch is the same for the same seed however many threads generate it.</p>
+ */
+@Slf4j
+public class NoGuessGenerator {
+
+    /**
+     * The number of candidates tried for a grid before giving up.
+     */
+    private static final int MAX_CANDIDATES = 100;
+
+    /**
+     * The number of repairs tried on a candidate before throwing it away.
+     */
+    private static final int MAX_REPAIRS = 20;
+
+    /**
+     * The number of undecided squares from which a stuck game is repaired without calculating the probabilities.
+     */
+    private static final int MAX_ENDGAME_SQUARES = 24;
+
+    private final ProbabilityCalculator calculator = new ProbabilityCalculator();
+
+    /**
+     * The number of rows in the grids.
+     */
+    @Getter
+    private final int rownumber;
+
+    /**
+     * The number of columns in the grids.
+     */
+    @Getter
+    private final int colnumber;
+
+    /**
+     * The number of mines in the grids.
+     */
+    @Getter
+    private final int minenumber;
+
+    /**
+     * Creates a {@code NoGuessGenerator} object.
+     *
+     * @param rows    the number of rows in the grids
+     * @param columns the number of columns in the grids
+     * @param mines   the number of mines in the grids
+     * @throws IllegalArgumentException if the number of rows or columns are not positive, or if there are not
+     *                                  nine squares left without mines
+     */
+    public NoGuessGenerator(int rows, int columns, int mines) {
+        if (rows <= 0 || columns <= 0 || mines < 0 || (long) rows * columns - 9 < mines) {
+            throw new IllegalArgumentException();
+        }
+        rownumber = rows;
+        colnumber = columns;
+        minenumber = mines;
+    }
+
+    /**
+     * Generates a grid which can be solved without guessing by first revealing the specified square.
+     * The square and the squares around it are free of mines.
+     *
+     * @param x      the x coordinate of the first square to reveal
+     * @param y      the y coordinate of the first square to reveal
+     * @param random the random number generator to place the mines with
+     * @return a new {@code MsweeperState} object with no square revealed
+     * @throws IllegalArgumentException if the square does not exist
+     * @throws IllegalStateException    if no such grid has been found
+     */
+    public MsweeperState generate(int x, int y, SplittableRandom random) {
+        if (x < 0 || y < 0 || x >= rownumber || y >= colnumber) throw new IllegalArgumentException();
+        for (int candidate = 0; candidate < MAX_CANDIDATES; ++candidate) {
+            MsweeperState state = new BoardId(rownumber, colnumber, minenumber, SafeStart.AREA, random.nextLong(),
+                    x * colnumber + y, new int[0]).createState();
+            BoardSolver solver = BoardSolver.attach(state);
+            state.reveal(x, y);
+            for (int repair = 0; ; ++repair) {
+                if (play(state, solver)) {
+                    BoardId boardId = state.getBoardId().orElseThrow();
+                    MsweeperState check = boardId.createState();
+                    if (repair == 0) return check;
+                    solver = BoardSolver.attach(check);
+                    check.reveal(x, y);
+                    if (play(check, solver)) {
+                        log.trace("Grid found after {} candidate(s) and {} repair(s)", candidate + 1, repair);
+                        return boardId.createState();
+                    }
+                    state = check;
+                }
+                if (repair == MAX_REPAIRS || !repair(state, solver, random)) break;
+            }
+        }
+        throw new IllegalStateException("No grid without guessing found");
+    }
+
+    /**
+     * Generates grids in parallel which can be solved without guessing by first revealing the specified square.
+     *
+     * @param count the number of grids to generate
+     * @param x     the x coordinate of the first square to reveal
+     * @param y     the y coordinate of the first square to reveal
+     * @param seed  the seed of the batch
+     * @return the list of the new {@code MsweeperState} objects, with no square revealed
+     * @throws IllegalArgumentException if the square does not exist
+     * @throws IllegalStateException    if no grid has been found for one of the random number generators
+     */
+    public List<MsweeperState> generate(int count, int x, int y, long seed) {
+        List<SplittableRandom> randoms = split(count, seed);
+        long start = System.nanoTime();
+        List<MsweeperState> states = IntStream.range(0, count).parallel()
+                .mapToObj(i -> generate(x, y, randoms.get(i)))
+                .collect(Collectors.toList());
+        log.debug("{} grid(s) of {}x{} with {} mines generated, {} per second", count, rownumber, colnumber,
+                minenumber, String.format("%.0f", count * 1e9 / (System.nanoTime() - start)));
+        return states;
+    }
+
+    /**
+     * Generates grids in parallel which can be solved without guessing by first revealing the specified square,
+     * and adds them to a queue as they are generated, waiting for space if the queue is full.
+     *
+     * @param queue the queue to add the grids to
+     * @param count the number of grids to generate
+     * @param x     the x coordinate of the first square to reveal
+     * @param y     the y coordinate of the first square to reveal
+     * @param seed  the seed of the batch
+     * @throws IllegalArgumentException if the square does not exist
+     * @throws IllegalStateException    if no grid has been found for one of the random number generators, or if
+     *                                  the thread has been interrupted while waiting for the queue
+     */
+    public void fill(BlockingQueue<MsweeperState> queue, int count, int x, int y, long seed) {
+        List<SplittableRandom> randoms = split(count, seed);
+        IntStream.range(0, count).parallel().forEach(i -> {
+            MsweeperState state = generate(x, y, randoms.get(i));
+            try {
+                queue.put(state);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static List<SplittableRandom> split(int count, long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        List<SplittableRandom> randoms = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            randoms.add(root.split());
+        }
+        return randoms;
+    }
+
+    /**
+     * Reveals the squares proven safe until the grid is solved or no square is. The probabilities are only
+     * calculated once at most {@value #MAX_ENDGAME_SQUARES} squares are left undecided, where the number of mines
+     * left can tell more than the numbers; before that, a stuck game is repaired straight away.
+     *
+     * @return {@code true} if the grid is solved, {@code false} if the game is stuck
+     */
+    private boolean play(MsweeperState state, BoardSolver solver) {
+        while (!state.isWon()) {
+            if (solver.solve()) {
+                for (Square square : solver.getSafeSquares()) {
+                    state.reveal(square.getX(), square.getY());
+                }
+                continue;
+            }
+            if (countUndecided(state, solver) > MAX_ENDGAME_SQUARES) return false;
+            double[][] probabilities = calculator.calculate(state);
+            boolean progress = false;
+            for (int i = 0; i < rownumber; ++i) {
+                for (int j = 0; j < colnumber; ++j) {
+                    if (probabilities[i][j] == 0 && !state.isRevealed(i, j)) {
+                        state.reveal(i, j);
+                        progress = true;
+                    }
+                }
+            }
+            if (!progress) return false;
+        }
+        return true;
+    }
+
+    private int countUndecided(MsweeperState state, BoardSolver solver) {
+        int count = 0;
+        for (int i = 0; i < rownumber; ++i) {
+            for (int j = 0; j < colnumber; ++j) {
+                if (!state.isRevealed(i, j) && !solver.isMine(i, j)) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves a mine whose square is undecided, preferably one next to the revealed area, to an undecided square,
+     * preferably one away from the revealed area, and tells the solver about the revealed numbers it has changed.
+     *
+     * @return {@code true} if a mine has been moved, {@code false} if there is no mine or no square to move
+     */
+    private boolean repair(MsweeperState state, BoardSolver solver, SplittableRandom random) {
+        List<Square> frontiermines = new ArrayList<>();
+        List<Square> othermines = new ArrayList<>();
+        List<Square> interior = new ArrayList<>();
+        List<Square> frontier = new ArrayList<>();
+        for (int i = 0; i < rownumber; ++i) {
+            for (int j = 0; j < colnumber; ++j) {
+                if (state.isRevealed(i, j) || solver.isMine(i, j)) continue;
+                boolean nextToRevealed = isNextToRevealed(state, i, j);
+                if (state.isMine(i, j)) {
+                    (nextToRevealed ? frontiermines : othermines).add(new Square(i, j));
+                } else {
+                    (nextToRevealed ? frontier : interior).add(new Square(i, j));
+                }
+            }
+        }
+        List<Square> from = frontiermines.isEmpty() ? othermines : frontiermines;
+        List<Square> to = interior.isEmpty() ? frontier : interior;
+        if (from.isEmpty() || to.isEmpty()) return false;
+        Square mine = from.get(random.nextInt(from.size()));
+        Square target = to.get(random.nextInt(to.size()));
+        state.moveMine(mine.getX(), mine.getY(), target.getX(), target.getY());
+        updateAround(state, solver, mine);
+        updateAround(state, solver, target);
+        return true;
+    }
+
+    private void updateAround(MsweeperState state, BoardSolver solver, Square square) {
+        for (int i = Math.max(square.getX() - 1, 0); i <= Math.min(square.getX() + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(square.getY() - 1, 0); j <= Math.min(square.getY() + 1, colnumber - 1); ++j) {
+                if (state.isRevealed(i, j)) solver.update(i, j, state.displayValue(i, j));
+            }
+        }
+    }
+
+    private boolean isNextToRevealed(MsweeperState state, int x, int y) {
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                if (state.isRevealed(i, j)) return true;
+            }
+        }
+        return false;
+    }
+
+}
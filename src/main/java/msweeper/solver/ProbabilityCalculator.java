@@ -0,0 +1,661 @@
+package msweeper.solver;
+
+import msweeper.state.MsweeperState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class calculating the exact probability of each hidden square being mined, from what the player can see of the
+ * grid, encoded the same way as in {@link MsweeperState#displayGrid()}, and the number of mines in the grid.
+ * Flags are treated as hidden squares.
+ *
+ * <p>The hidden squares next to revealed numbers are split into components which share no number. The mine
+ * configurations of each component are enumerated separately, pruning a branch as soon as a number can no longer
+ * be satisfied, and counted by their number of mines. The counts of the components are then combined, each total
+ * weighted by the number of ways the remaining mines can be placed in the hidden squares next to no number.</p>
+ *
+ * <p>Components are enumerated in parallel on a fork-join pool, and large components are split further between
+ * the threads of the pool. The results of components are remembered, so components which have not changed
+ * between two calls are not enumerated again.</p>
+ *
+ * <p>By default the probabilities are exact, however long the enumeration takes. A calculator created with a
+ * budget of visits, such as {@link #DEFAULT_MAX_VISITS}, cuts the enumeration of a component off once that many
+ * squares have been decided, and the probabilities of such a component are then only approximated, each square
+ * being taken as mined independently with the average density of its numbers, so a single huge component cannot
+ * hold up the whole calculation. Callers relying on the probabilities being exact must not give a budget.</p>
+ */
+public class ProbabilityCalculator {
+
+    /**
+     * Components with at least this many squares are split between threads.
+     */
+    private static final int SPLIT_THRESHOLD = 24;
+
+    /**
+     * The number of squares of a component whose branches may be split between threads.
+     */
+    private static final int SPLIT_DEPTH = 6;
+
+    /**
+     * A number of squares decided while enumerating a component, before it is approximated instead, which keeps
+     * each component to a few milliseconds.
+     */
+    public static final long DEFAULT_MAX_VISITS = 1 << 18;
+
+    /**
+     * The budget of visits of a calculator whose probabilities are exact.
+     */
+    private static final long EXACT = Long.MAX_VALUE;
+
+    /**
+     * The number of squares a task decides between two checks of the budget of its component.
+     */
+    private static final int VISITS_PER_CHECK = 1024;
+
+    /**
+     * The largest number of component results remembered.
+     */
+    private static final int MAX_REMEMBERED = 4096;
+
+    private final ForkJoinPool pool;
+
+    private final long maxVisits;
+
+    private final Map<Component, Counts> remembered = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a {@code ProbabilityCalculator} object calculating exact probabilities, using the common fork-join
+     * pool.
+     */
+    public ProbabilityCalculator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a {@code ProbabilityCalculator} object calculating exact probabilities.
+     *
+     * @param pool the fork-join pool to enumerate the components on
+     */
+    public ProbabilityCalculator(ForkJoinPool pool) {
+        this(pool, EXACT);
+    }
+
+    /**
+     * Creates a {@code ProbabilityCalculator} object which approximates the probabilities of the components it
+     * cannot enumerate within a budget.
+     *
+     * @param pool      the fork-join pool to enumerate the components on
+     * @param maxVisits the number of squares decided while enumerating a component, before it is approximated
+     * @throws IllegalArgumentException if {@code maxVisits} is not positive
+     */
+    public ProbabilityCalculator(ForkJoinPool pool, long maxVisits) {
+        if (maxVisits <= 0) throw new IllegalArgumentException();
+        this.pool = pool;
+        this.maxVisits = maxVisits;
+    }
+
+    /**
+     * Calculates the probability of each hidden square of a state being mined.
+     *
+     * @param state the state to calculate the probabilities for
+     * @return the probability of each square being mined, which is zero for revealed squares without a mine and
+     * one for revealed squares with a mine
+     * @throws IllegalArgumentException if no placement of the mines agrees with what the player sees
+     */
+    public double[][] calculate(MsweeperState state) {
+        return calculate(state.displayGrid(), state.getMinenumber());
+    }
+
+    /**
+     * Calculates the probability of each hidden square being mined.
+     *
+     * @param grid  what the player sees of each square, encoded the same way as in
+     *              {@link MsweeperState#displayGrid()}
+     * @param mines the number of mines in the grid
+     * @return the probability of each square being mined, which is zero for revealed squares without a mine and
+     * one for revealed squares with a mine
+     * @throws IllegalArgumentException if the grid is empty or not rectangular, or if no placement of the mines
+     *                                  agrees with what the player sees
+     */
+    public double[][] calculate(int[][] grid, int mines) {
+        if (grid.length == 0 || grid[0].length == 0) throw new IllegalArgumentException();
+        int rownumber = grid.length;
+        int colnumber = grid[0].length;
+        int size = rownumber * colnumber;
+        int[] view = new int[size];
+        int remaining = mines;
+        for (int i = 0; i < rownumber; ++i) {
+            if (grid[i].length != colnumber) throw new IllegalArgumentException();
+            for (int j = 0; j < colnumber; ++j) {
+                view[i * colnumber + j] = grid[i][j];
+                if (grid[i][j] == 2) remaining--;
+            }
+        }
+
+        List<Component> components = findComponents(view, rownumber, colnumber);
+        boolean[] onfrontier = new boolean[size];
+        int interior = 0;
+        for (Component component : components) {
+            for (int square : component.squares) {
+                onfrontier[square] = true;
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            if (view[i] < 2 && !onfrontier[i]) interior++;
+        }
+
+        List<Counts> counts = countAll(components);
+        double[] binomials = binomialWeights(interior, remaining);
+
+        int n = components.size();
+        double[][] prefix = new double[n + 1][];
+        double[][] suffix = new double[n + 1][];
+        prefix[0] = new double[]{1};
+        suffix[n] = new double[]{1};
+        for (int c = 0; c < n; ++c) {
+            prefix[c + 1] = convolve(prefix[c], counts.get(c).total);
+        }
+        for (int c = n - 1; c >= 0; --c) {
+            suffix[c] = convolve(counts.get(c).total, suffix[c + 1]);
+        }
+
+        double[] probabilities = new double[size];
+        for (int c = 0; c < n; ++c) {
+            double[] others = convolve(prefix[c], suffix[c + 1]);
+            Counts component = counts.get(c);
+            double[] weights = new double[component.total.length];
+            double normalizer = 0;
+            for (int k = 0; k < weights.length; ++k) {
+                for (int rest = 0; rest < others.length; ++rest) {
+                    weights[k] += others[rest] * weight(binomials, remaining - k - rest);
+                }
+                normalizer += component.total[k] * weights[k];
+            }
+            if (normalizer == 0) throw new IllegalArgumentException("No placement of the mines agrees with the grid");
+            int[] squares = components.get(c).squares;
+            for (int s = 0; s < squares.length; ++s) {
+                double p = 0;
+                for (int k = 0; k < weights.length; ++k) {
+                    p += component.bySquare[s][k] * weights[k];
+                }
+                probabilities[squares[s]] = p / normalizer;
+            }
+        }
+
+        double[] all = prefix[n];
+        double normalizer = 0;
+        double interiormines = 0;
+        for (int k = 0; k < all.length; ++k) {
+            double w = all[k] * weight(binomials, remaining - k);
+            normalizer += w;
+            interiormines += w * (remaining - k);
+        }
+        if (normalizer == 0) throw new IllegalArgumentException("No placement of the mines agrees with the grid");
+        double interiorprobability = interior == 0 ? 0 : interiormines / normalizer / interior;
+
+        double[][] result = new double[rownumber][colnumber];
+        for (int i = 0; i < size; ++i) {
+            double p;
+            if (view[i] == 2) {
+                p = 1;
+            } else if (view[i] > 2) {
+                p = 0;
+            } else if (onfrontier[i]) {
+                p = probabilities[i];
+            } else {
+                p = interiorprobability;
+            }
+            result[i / colnumber][i % colnumber] = p;
+        }
+        return result;
+    }
+
+    /**
+     * Splits the hidden squares next to revealed numbers into components sharing no number.
+     */
+    private static List<Component> findComponents(int[] view, int rownumber, int colnumber) {
+        int size = view.length;
+        int[] parent = new int[size];
+        for (int i = 0; i < size; ++i) {
+            parent[i] = i;
+        }
+        List<int[]> constraints = new ArrayList<>();
+        for (int index = 0; index < size; ++index) {
+            if (view[index] < 3) continue;
+            int x = index / colnumber;
+            int y = index % colnumber;
+            int[] constraint = new int[10];
+            int count = 0;
+            int mines = view[index] - 3;
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+                for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                    int neighbour = i * colnumber + j;
+                    if (view[neighbour] == 2) mines--;
+                    if (view[neighbour] < 2) constraint[2 + count++] = neighbour;
+                }
+            }
+            if (count == 0) {
+                if (mines != 0) throw new IllegalArgumentException("No placement of the mines agrees with the grid");
+                continue;
+            }
+            constraint[0] = mines;
+            constraint[1] = count;
+            constraints.add(constraint);
+            for (int k = 3; k < 2 + count; ++k) {
+                union(parent, constraint[2], constraint[k]);
+            }
+        }
+
+        Map<Integer, List<int[]>> byRoot = new LinkedHashMap<>();
+        for (int[] constraint : constraints) {
+            byRoot.computeIfAbsent(find(parent, constraint[2]), root -> new ArrayList<>()).add(constraint);
+        }
+        List<Component> components = new ArrayList<>();
+        for (List<int[]> group : byRoot.values()) {
+            components.add(new Component(group));
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    /**
+     * Counts the mine configurations of every component, using the remembered results where possible.
+     */
+    private List<Counts> countAll(List<Component> components) {
+        List<Counts> result = new ArrayList<>(components.size());
+        List<ForkJoinTask<Counts>> tasks = new ArrayList<>();
+        int enumerated = 0;
+        for (Component component : components) {
+            Counts counts = remembered.get(component);
+            if (counts == null) {
+                enumerated += component.squares.length;
+                tasks.add(new Enumeration(component, new byte[component.squares.length], 0,
+                        new int[component.mines.length], component.sizes.clone(), new AtomicLong(maxVisits)));
+            }
+            result.add(counts);
+        }
+        if (enumerated < SPLIT_THRESHOLD) {
+            // too little work to be worth handing over to the pool
+            tasks.forEach(ForkJoinTask::invoke);
+        } else if (!tasks.isEmpty()) {
+            pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    invokeAll(tasks);
+                    return null;
+                }
+            });
+        }
+        if (remembered.size() + tasks.size() > MAX_REMEMBERED) remembered.clear();
+        int t = 0;
+        for (int c = 0; c < result.size(); ++c) {
+            if (result.get(c) == null) {
+                Enumeration task = (Enumeration) tasks.get(t++);
+                Counts counts = task.isCutOff() ? approximate(components.get(c)) : task.join().normalized();
+                remembered.put(components.get(c), counts);
+                result.set(c, counts);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Approximates the counts of a component whose enumeration has been cut off, taking each square to be mined
+     * independently with the average of the densities of its numbers. The total is then the distribution of the sum
+     * of the squares, and the count of each square with a given number of mines is shared out in proportion to the
+     * densities.
+     */
+    private static Counts approximate(Component component) {
+        int squares = component.squares.length;
+        double[] densities = new double[squares];
+        double sum = 0;
+        for (int s = 0; s < squares; ++s) {
+            for (int c : component.numbers[s]) {
+                densities[s] += (double) component.mines[c] / component.sizes[c];
+            }
+            densities[s] /= component.numbers[s].length;
+            sum += densities[s];
+        }
+        Counts counts = new Counts(squares);
+        counts.total[0] = 1;
+        for (int s = 0; s < squares; ++s) {
+            for (int k = s + 1; k > 0; --k) {
+                counts.total[k] = counts.total[k] * (1 - densities[s]) + counts.total[k - 1] * densities[s];
+            }
+            counts.total[0] *= 1 - densities[s];
+        }
+        if (sum > 0) {
+            for (int s = 0; s < squares; ++s) {
+                for (int k = 0; k <= squares; ++k) {
+                    counts.bySquare[s][k] = counts.total[k] * k * densities[s] / sum;
+                }
+            }
+        }
+        return counts.normalized();
+    }
+
+    /**
+     * Returns the number of ways each number of mines can be placed among the squares next to no number,
+     * divided by the largest of them, indexed by the number of mines.
+     */
+    private static double[] binomialWeights(int interior, int remaining) {
+        if (remaining < 0) throw new IllegalArgumentException("No placement of the mines agrees with the grid");
+        int max = Math.min(interior, remaining);
+        double[] logs = new double[max + 1];
+        double logbinomial = 0;
+        double largest = Double.NEGATIVE_INFINITY;
+        // log C(interior, r) computed incrementally from log C(interior, r - 1)
+        for (int r = 0; r <= max; ++r) {
+            if (r > 0) logbinomial += Math.log(interior - r + 1) - Math.log(r);
+            logs[r] = logbinomial;
+            largest = Math.max(largest, logbinomial);
+        }
+        double[] weights = new double[max + 1];
+        for (int r = 0; r <= max; ++r) {
+            weights[r] = Math.exp(logs[r] - largest);
+        }
+        return weights;
+    }
+
+    private static double weight(double[] binomials, int r) {
+        return r >= 0 && r < binomials.length ? binomials[r] : 0;
+    }
+
+    /**
+     * Convolves two distributions indexed by number of mines, rescaling the result so its largest element is one.
+     */
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        double largest = 0;
+        for (int i = 0; i < a.length; ++i) {
+            if (a[i] == 0) continue;
+            for (int j = 0; j < b.length; ++j) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        for (double value : result) {
+            largest = Math.max(largest, value);
+        }
+        if (largest > 0) {
+            for (int i = 0; i < result.length; ++i) {
+                result[i] /= largest;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Class representing the hidden squares and numbers of a component, with the squares ordered so that squares
+     * sharing numbers are close, which lets the enumeration prune early.
+     */
+    private static class Component {
+
+        /**
+         * The indices of the squares in the grid.
+         */
+        private final int[] squares;
+
+        /**
+         * The remaining mines of each number.
+         */
+        private final int[] mines;
+
+        /**
+         * The number of squares of each number.
+         */
+        private final int[] sizes;
+
+        /**
+         * The numbers of each square, by position in {@link #squares}.
+         */
+        private final int[][] numbers;
+
+        private final int hash;
+
+        private Component(List<int[]> constraints) {
+            List<Integer> order = new ArrayList<>();
+            Map<Integer, Integer> positions = new HashMap<>();
+            for (int[] constraint : constraints) {
+                for (int k = 2; k < 2 + constraint[1]; ++k) {
+                    if (!positions.containsKey(constraint[k])) {
+                        positions.put(constraint[k], order.size());
+                        order.add(constraint[k]);
+                    }
+                }
+            }
+            squares = order.stream().mapToInt(Integer::intValue).toArray();
+            mines = new int[constraints.size()];
+            sizes = new int[constraints.size()];
+            int[] counts = new int[squares.length];
+            for (int c = 0; c < constraints.size(); ++c) {
+                int[] constraint = constraints.get(c);
+                mines[c] = constraint[0];
+                sizes[c] = constraint[1];
+                for (int k = 2; k < 2 + constraint[1]; ++k) {
+                    counts[positions.get(constraint[k])]++;
+                }
+            }
+            numbers = new int[squares.length][];
+            for (int s = 0; s < squares.length; ++s) {
+                numbers[s] = new int[counts[s]];
+                counts[s] = 0;
+            }
+            for (int c = 0; c < constraints.size(); ++c) {
+                int[] constraint = constraints.get(c);
+                for (int k = 2; k < 2 + constraint[1]; ++k) {
+                    int s = positions.get(constraint[k]);
+                    numbers[s][counts[s]++] = c;
+                }
+            }
+            hash = 31 * Arrays.hashCode(squares) + Arrays.hashCode(mines);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Component)) return false;
+            Component other = (Component) o;
+            return hash == other.hash && Arrays.equals(squares, other.squares) && Arrays.equals(mines, other.mines)
+                    && Arrays.equals(sizes, other.sizes) && Arrays.deepEquals(numbers, other.numbers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Class representing the number of mine configurations of a component, in total and with each square mined,
+     * indexed by the number of mines.
+     */
+    private static class Counts {
+
+        private final double[] total;
+        private final double[][] bySquare;
+
+        private Counts(int squares) {
+            total = new double[squares + 1];
+            bySquare = new double[squares][squares + 1];
+        }
+
+        private void add(Counts other) {
+            for (int k = 0; k < total.length; ++k) {
+                total[k] += other.total[k];
+            }
+            for (int s = 0; s < bySquare.length; ++s) {
+                for (int k = 0; k < total.length; ++k) {
+                    bySquare[s][k] += other.bySquare[s][k];
+                }
+            }
+        }
+
+        /**
+         * Divides every count by the largest total, which does not change the probabilities.
+         */
+        private Counts normalized() {
+            double largest = 0;
+            for (double value : total) {
+                largest = Math.max(largest, value);
+            }
+            if (largest > 0) {
+                for (int k = 0; k < total.length; ++k) {
+                    total[k] /= largest;
+                    for (double[] counts : bySquare) {
+                        counts[k] /= largest;
+                    }
+                }
+            }
+            return this;
+        }
+
+    }
+
+    /**
+     * Task enumerating the mine configurations of a component from a given square on, with the squares before it
+     * already decided.
+     */
+    private static class Enumeration extends RecursiveTask<Counts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Component component;
+        private final byte[] mined;
+        private final int start;
+
+        /**
+         * The mines placed so far next to each number.
+         */
+        private final int[] placed;
+
+        /**
+         * The undecided squares next to each number.
+         */
+        private final int[] open;
+
+        /**
+         * The number of squares the tasks of the component may still decide, shared between them. The enumeration
+         * is cut off once it is negative.
+         */
+        private final AtomicLong budget;
+
+        private Counts counts;
+
+        private int visits;
+
+        private boolean cutoff;
+
+        private Enumeration(Component component, byte[] mined, int start, int[] placed, int[] open,
+                            AtomicLong budget) {
+            this.component = component;
+            this.mined = mined;
+            this.start = start;
+            this.placed = placed;
+            this.open = open;
+            this.budget = budget;
+        }
+
+        /**
+         * Checks whether the enumeration of the component has been cut off, leaving its counts incomplete.
+         */
+        private boolean isCutOff() {
+            return budget.get() < 0;
+        }
+
+        @Override
+        protected Counts compute() {
+            int squares = component.squares.length;
+            if (start < SPLIT_DEPTH && squares - start >= SPLIT_THRESHOLD) {
+                List<Enumeration> branches = new ArrayList<>(2);
+                for (byte value = 0; value <= 1; ++value) {
+                    byte[] branchmined = mined.clone();
+                    int[] branchplaced = placed.clone();
+                    int[] branchopen = open.clone();
+                    if (decide(start, value, branchmined, branchplaced, branchopen)) {
+                        branches.add(new Enumeration(component, branchmined, start + 1, branchplaced, branchopen,
+                                budget));
+                    }
+                }
+                Counts result = new Counts(squares);
+                for (Enumeration branch : invokeAll(branches)) {
+                    result.add(branch.join());
+                }
+                return result;
+            }
+            counts = new Counts(squares);
+            enumerate(start);
+            return counts;
+        }
+
+        private void enumerate(int square) {
+            if (++visits == VISITS_PER_CHECK) {
+                visits = 0;
+                cutoff = budget.addAndGet(-VISITS_PER_CHECK) < 0;
+            }
+            if (cutoff) return;
+            if (square == component.squares.length) {
+                int total = 0;
+                for (byte value : mined) {
+                    total += value;
+                }
+                counts.total[total]++;
+                for (int s = 0; s < mined.length; ++s) {
+                    if (mined[s] == 1) counts.bySquare[s][total]++;
+                }
+                return;
+            }
+            for (byte value = 0; value <= 1; ++value) {
+                if (decide(square, value, mined, placed, open)) {
+                    enumerate(square + 1);
+                }
+                undecide(square, value, mined, placed, open);
+            }
+        }
+
+        /**
+         * Decides a square, and checks whether its numbers can still be satisfied.
+         */
+        private boolean decide(int square, byte value, byte[] mined, int[] placed, int[] open) {
+            mined[square] = value;
+            boolean possible = true;
+            for (int c : component.numbers[square]) {
+                placed[c] += value;
+                open[c]--;
+                if (placed[c] > component.mines[c] || placed[c] + open[c] < component.mines[c]) possible = false;
+            }
+            return possible;
+        }
+
+        private void undecide(int square, byte value, byte[] mined, int[] placed, int[] open) {
+            mined[square] = 0;
+            for (int c : component.numbers[square]) {
+                placed[c] -= value;
+                open[c]++;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,21 @@
+package msweeper.solver;
+
+import lombok.Value;
+
+/**
+ * Class representing the coordinates of a square of the grid.
+ */
+@Value
+public class Square {
+
+    /**
+     * The x coordinate of the square.
+     */
+    int x;
+
+    /**
+     * The y coordinate of the square.
+     */
+    int y;
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides classes for reasoning about the squares of a puzzle, as seen by the player.
+ */
+package msweeper.solver;
@@ -0,0 +1,104 @@
+package msweeper.state;
+
+/**
+ * Class computing how hard a grid is to clear, from where its mines are.
+ *
+ * <p>The squares are visited once, row by row. Each square without a mine is classified from the squares around
+ * it as part of an opening, on the border of an opening, or isolated, and joined to the squares of the same class
+ * visited before it in a union-find structure. The openings and islands are the components of the opening and
+ * isolated squares, and the 3BV is the number of openings plus the number of isolated squares, so the analysis
+ * takes time proportional to the number of squares.</p>
+ */
+public class BoardAnalyzer {
+
+    private static final byte MINE = 0;
+    private static final byte OPENING = 1;
+    private static final byte BORDER = 2;
+    private static final byte ISOLATED = 3;
+
+    private BoardAnalyzer() {
+    }
+
+    /**
+     * Computes how hard the grid of a state is to clear.
+     *
+     * @param state the state to analyse
+     * @return the metrics of the grid
+     * @throws IllegalStateException if the mines have not been placed yet
+     */
+    public static BoardMetrics analyze(MsweeperState state) {
+        if (!state.isMinesplaced()) throw new IllegalStateException("The mines have not been placed yet");
+        int rows = state.getRownumber();
+        int columns = state.getColnumber();
+        byte[] kinds = new byte[rows * columns];
+        int[] parents = new int[kinds.length];
+        int isolatedsquares = 0;
+        int openings = 0;
+        int islands = 0;
+        for (int i = 0; i < rows; ++i) {
+            for (int j = 0; j < columns; ++j) {
+                int index = i * columns + j;
+                byte kind = classify(state, i, j);
+                kinds[index] = kind;
+                parents[index] = -1;
+                if (kind == OPENING) {
+                    openings++;
+                } else if (kind == ISOLATED) {
+                    isolatedsquares++;
+                    islands++;
+                } else continue;
+                if (j > 0 && kinds[index - 1] == kind && union(parents, index - 1, index)) {
+                    if (kind == OPENING) openings--; else islands--;
+                }
+                if (i == 0) continue;
+                for (int k = Math.max(j - 1, 0); k <= Math.min(j + 1, columns - 1); ++k) {
+                    int neighbour = index - columns + k - j;
+                    if (kinds[neighbour] == kind && union(parents, neighbour, index)) {
+                        if (kind == OPENING) openings--; else islands--;
+                    }
+                }
+            }
+        }
+        return new BoardMetrics(openings + isolatedsquares, openings, islands);
+    }
+
+    private static byte classify(MsweeperState state, int x, int y) {
+        if (state.isMine(x, y)) return MINE;
+        if (state.getMinesAround(x, y) == 0) return OPENING;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, state.getRownumber() - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, state.getColnumber() - 1); ++j) {
+                if (!state.isMine(i, j) && state.getMinesAround(i, j) == 0) return BORDER;
+            }
+        }
+        return ISOLATED;
+    }
+
+    /**
+     * Joins the components of two squares, the parent of a root holding the negated size of its component.
+     *
+     * @return {@code true} if the squares were in different components, {@code false} otherwise
+     */
+    private static boolean union(int[] parents, int first, int second) {
+        int a = find(parents, first);
+        int b = find(parents, second);
+        if (a == b) return false;
+        if (parents[a] > parents[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parents[a] += parents[b];
+        parents[b] = a;
+        return true;
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] >= 0) {
+            int parent = parents[index];
+            if (parents[parent] >= 0) parents[index] = parents[parent];
+            index = parent;
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,250 @@
+package msweeper.state;
+
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.SplittableRandom;
+
+/**
+ * Class identifying a randomly generated grid by everything needed to generate it again.
+ * Its string form is a short URL-safe code, so grids can be shared and regenerated instead of stored.
+ * Grids whose mines are placed on the first reveal also depend on the first revealed square, unless the identifier
+ * names the square to place them around. Mines moved after being placed, as when a grid is repaired so it can be
+ * solved without guessing, are part of the identifier too.
+ */
+@Value
+public class BoardId {
+
+    /**
+     * The version of the string form.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of rows in the grid.
+     */
+    int rows;
+
+    /**
+     * The number of columns in the grid.
+     */
+    int columns;
+
+    /**
+     * The number of mines in the grid.
+     */
+    int mines;
+
+    /**
+     * The squares kept free of mines around the first revealed square, or {@code null} if the mines are placed
+     * when the grid is created.
+     */
+    SafeStart safeStart;
+
+    /**
+     * The seed of the random number generator placing the mines.
+     */
+    long seed;
+
+    /**
+     * The index, row by row, of the square the mines are placed around when the grid is created, as if it had been
+     * revealed first, or {@code -1} if they are placed on the first reveal or without a safe start.
+     */
+    int start;
+
+    /**
+     * The mines moved after being placed, as pairs of the indices, row by row, of the square the mine is moved from
+     * and of the square it is moved to.
+     */
+    int[] moves;
+
+    /**
+     * Creates a {@code BoardId} object without a starting square or moved mines.
+     *
+     * @param rows      the number of rows in the grid
+     * @param columns   the number of columns in the grid
+     * @param mines     the number of mines in the grid
+     * @param safeStart the squares kept free of mines around the first revealed square, or {@code null}
+     * @param seed      the seed of the random number generator placing the mines
+     */
+    public BoardId(int rows, int columns, int mines, SafeStart safeStart, long seed) {
+        this(rows, columns, mines, safeStart, seed, -1, new int[0]);
+    }
+
+    /**
+     * Creates a {@code BoardId} object.
+     *
+     * @param rows      the number of rows in the grid
+     * @param columns   the number of columns in the grid
+     * @param mines     the number of mines in the grid
+     * @param safeStart the squares kept free of mines around the first revealed square, or {@code null}
+     * @param seed      the seed of the random number generator placing the mines
+     * @param start     the index of the square the mines are placed around when the grid is created, or {@code -1}
+     * @param moves     the indices of the squares each moved mine is moved from and to
+     * @throws IllegalArgumentException if there is a starting square without {@code safeStart}, or if the moves
+     *                                  are not in pairs
+     */
+    public BoardId(int rows, int columns, int mines, SafeStart safeStart, long seed, int start, int[] moves) {
+        if (start < -1 || start >= 0 && safeStart == null || moves.length % 2 != 0) {
+            throw new IllegalArgumentException();
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.mines = mines;
+        this.safeStart = safeStart;
+        this.seed = seed;
+        this.start = start;
+        this.moves = moves.clone();
+    }
+
+    /**
+     * Returns the mines moved after being placed.
+     *
+     * @return a copy of the pairs of indices of the squares each mine is moved from and to
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    /**
+     * Returns the identifier of the grid after moving a mine.
+     *
+     * @param placedAround the index of the square the mines have been placed around
+     * @param from         the index of the square the mine is moved from
+     * @param to           the index of the square the mine is moved to
+     * @return the new {@code BoardId} object
+     */
+    BoardId withMove(int placedAround, int from, int to) {
+        int[] newmoves = Arrays.copyOf(moves, moves.length + 2);
+        newmoves[moves.length] = from;
+        newmoves[moves.length + 1] = to;
+        return new BoardId(rows, columns, mines, safeStart, seed, safeStart == null ? -1 : placedAround, newmoves);
+    }
+
+    /**
+     * Creates a {@code BoardId} object with a seed taken from the specified random number generator.
+     * Giving each thread its own generator, split from a common one, lets grids be generated in parallel
+     * from independent streams.
+     *
+     * @param rows      the number of rows in the grid
+     * @param columns   the number of columns in the grid
+     * @param mines     the number of mines in the grid
+     * @param safeStart the squares kept free of mines around the first revealed square, or {@code null}
+     * @param source    the random number generator to take the seed from
+     * @return the new {@code BoardId} object
+     */
+    public static BoardId random(int rows, int columns, int mines, SafeStart safeStart, SplittableRandom source) {
+        return new BoardId(rows, columns, mines, safeStart, source.nextLong());
+    }
+
+    /**
+     * Creates the grid identified by this object.
+     *
+     * @return a new {@code MsweeperState} object with the grid identified by this object
+     * @throws IllegalArgumentException if the parameters of the grid are invalid
+     */
+    public MsweeperState createState() {
+        MsweeperState state = safeStart == null
+                ? new MsweeperState(rows, columns, mines, seed)
+                : new MsweeperState(rows, columns, mines, safeStart, seed);
+        if (start < 0 && moves.length == 0) return state;
+        if (start >= (long) rows * columns) throw new IllegalArgumentException();
+        if (start >= 0) state.placeMinesAround(start / columns, start % columns);
+        for (int i = 0; i < moves.length; i += 2) {
+            if (moves[i] < 0 || moves[i + 1] < 0) throw new IllegalArgumentException();
+            state.moveMine(moves[i] / columns, moves[i] % columns, moves[i + 1] / columns, moves[i + 1] % columns);
+        }
+        state.setBoardId(this);
+        return state;
+    }
+
+    /**
+     * Parses a string created by {@link #toString()}.
+     *
+     * @param id the string to parse
+     * @return the {@code BoardId} object represented by the string
+     * @throws IllegalArgumentException if the string is not a valid board identifier
+     */
+    public static BoardId parse(String id) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(id));
+            int header = buffer.get();
+            int version = header >> 4;
+            if (version != VERSION) throw new IllegalArgumentException();
+            int safeStart = header & 0x0F;
+            if (safeStart > SafeStart.values().length) throw new IllegalArgumentException();
+            int rows = getVarInt(buffer);
+            int columns = getVarInt(buffer);
+            int mines = getVarInt(buffer);
+            long seed = buffer.getLong();
+            int start = -1;
+            int[] moves = new int[0];
+            if (buffer.hasRemaining()) {
+                start = getVarInt(buffer) - 1;
+                int count = getVarInt(buffer);
+                if (start < 0 && count == 0 || count < 0 || count > buffer.remaining()) {
+                    throw new IllegalArgumentException();
+                }
+                moves = new int[2 * count];
+                for (int i = 0; i < moves.length; ++i) {
+                    moves[i] = getVarInt(buffer);
+                }
+            }
+            if (buffer.hasRemaining()) throw new IllegalArgumentException();
+            return new BoardId(rows, columns, mines, safeStart == 0 ? null : SafeStart.values()[safeStart - 1], seed,
+                    start, moves);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid board identifier: " + id, e);
+        }
+    }
+
+    /**
+     * Converts this object to its string form, which is the URL-safe Base64 encoding of a version and
+     * {@link #safeStart} byte, the dimensions and the number of mines as variable-length integers, and the seed.
+     * Only if there is a starting square or moved mines, the starting square plus one, the number of moves and the
+     * indices of the moves follow as variable-length integers, so identifiers of plain grids stay short.
+     *
+     * @return the string form of this object
+     */
+    @Override
+    public String toString() {
+        boolean moved = start >= 0 || moves.length > 0;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 3 * 5 + 8 + (moved ? 2 * 5 + 5 * moves.length : 0));
+        buffer.put((byte) (VERSION << 4 | (safeStart == null ? 0 : safeStart.ordinal() + 1)));
+        putVarInt(buffer, rows);
+        putVarInt(buffer, columns);
+        putVarInt(buffer, mines);
+        buffer.putLong(seed);
+        if (moved) {
+            putVarInt(buffer, start + 1);
+            putVarInt(buffer, moves.length / 2);
+            for (int index : moves) {
+                putVarInt(buffer, index);
+            }
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException();
+    }
+
+}
@@ -0,0 +1,28 @@
+package msweeper.state;
+
+import lombok.Value;
+
+/**
+ * Class representing how hard a grid is to clear, as computed by {@link BoardAnalyzer}.
+ */
+@Value
+public class BoardMetrics {
+
+    /**
+     * The Bechtel's Board Benchmark Value of the grid, the least number of reveals needed to clear it.
+     */
+    int bbbv;
+
+    /**
+     * The number of openings, the areas of connected squares with no mine around them, which are cleared by
+     * a single reveal.
+     */
+    int openings;
+
+    /**
+     * The number of islands, the groups of connected squares with mines around them which are not next to any
+     * opening, and so have to be revealed one by one.
+     */
+    int islands;
+
+}
@@ -0,0 +1,97 @@
+package msweeper.state;
+
+/**
+ * Class representing the squares whose content, as seen by the player, has been changed by a move.
+ * The object is reused by the {@link MsweeperState} it belongs to, so it is only valid until the next move.
+ */
+public class ChangeSet {
+
+    /**
+     * The number of columns in the grid the squares belong to.
+     */
+    private final int colnumber;
+
+    /**
+     * Array containing the indices of the changed squares, row by row, in its first {@link #size} elements.
+     */
+    private int[] indices;
+
+    /**
+     * The number of changed squares.
+     */
+    private int size;
+
+    /**
+     * Creates an empty {@code ChangeSet} object.
+     *
+     * @param colnumber the number of columns in the grid the squares belong to
+     */
+    ChangeSet(int colnumber) {
+        this.colnumber = colnumber;
+        this.indices = new int[0];
+    }
+
+    /**
+     * Sets the changed squares to the first {@code size} indices of the specified array, without copying it.
+     *
+     * @param indices the array containing the indices of the changed squares
+     * @param size    the number of changed squares
+     */
+    void set(int[] indices, int size) {
+        this.indices = indices;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of changed squares.
+     *
+     * @return the number of changed squares
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether there are no changed squares.
+     *
+     * @return {@code true} if no square has changed, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the x coordinate of a changed square.
+     *
+     * @param i the position of the square in this change set
+     * @return the x coordinate of the square
+     * @throws IndexOutOfBoundsException if {@code i} is negative or not less than {@link #size()}
+     */
+    public int getX(int i) {
+        return getIndex(i) / colnumber;
+    }
+
+    /**
+     * Returns the y coordinate of a changed square.
+     *
+     * @param i the position of the square in this change set
+     * @return the y coordinate of the square
+     * @throws IndexOutOfBoundsException if {@code i} is negative or not less than {@link #size()}
+     */
+    public int getY(int i) {
+        return getIndex(i) % colnumber;
+    }
+
+    /**
+     * Returns the index of a changed square, which is {@code x * colnumber + y}.
+     *
+     * @param i the position of the square in this change set
+     * @return the index of the square
+     * @throws IndexOutOfBoundsException if {@code i} is negative or not less than {@link #size()}
+     */
+    public int getIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return indices[i];
+    }
+
+}
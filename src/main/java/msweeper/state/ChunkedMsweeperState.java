@@ -0,0 +1,370 @@
+package msweeper.state;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static msweeper.state.MsweeperState.AROUND_MASK;
+import static msweeper.state.MsweeperState.FLAG;
+import static msweeper.state.MsweeperState.MINE;
+import static msweeper.state.MsweeperState.REVEALED;
+
+/**
+ * Class representing the state of a puzzle on a grid without bounds.
+ * The grid is split into square chunks, whose mines are generated from the seed and the coordinates of the chunk
+ * when they are first needed, so the memory used grows with the explored area instead of the size of the grid.
+ * Chunks which have been revealed or flagged in are kept, the others are cached and evicted when the cache is full,
+ * as they can be generated again. The squares around the origin are always free of mines.
+ */
+@Slf4j
+public class ChunkedMsweeperState {
+
+    /**
+     * The base 2 logarithm of the number of rows and columns in a chunk.
+     */
+    private static final int CHUNK_BITS = 6;
+
+    /**
+     * The number of rows and columns in a chunk.
+     */
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * The number of squares in a chunk.
+     */
+    private static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+
+    /**
+     * The smallest number of mines in a chunk. Below this density areas without mines around could join up
+     * without bounds, and a single reveal would never finish.
+     */
+    public static final int MIN_MINES_PER_CHUNK = CHUNK_AREA / 8;
+
+    /**
+     * The largest number of mines in a chunk.
+     */
+    public static final int MAX_MINES_PER_CHUNK = CHUNK_AREA / 2;
+
+    /**
+     * The default number of chunks cached which have not been revealed or flagged in.
+     */
+    public static final int DEFAULT_CACHED_CHUNKS = 64;
+
+    /**
+     * Class representing a chunk of the grid, with the squares stored the same way as in {@link MsweeperState}.
+     */
+    private static class Chunk {
+
+        private final byte[] cells = new byte[CHUNK_AREA];
+
+        /**
+         * Indicates whether the number of mines around each square has been calculated.
+         */
+        private boolean counted;
+
+    }
+
+    /**
+     * The number of mines in each chunk.
+     */
+    @Getter
+    private final int minesPerChunk;
+
+    /**
+     * The seed the mines of each chunk are generated from.
+     */
+    @Getter
+    private final long seed;
+
+    /**
+     * The chunks which have been revealed or flagged in, by key.
+     */
+    private final Map<Long, Chunk> touchedChunks = new HashMap<>();
+
+    /**
+     * The other chunks generated, by key, in least recently used order.
+     */
+    private final Map<Long, Chunk> cachedChunks;
+
+    /**
+     * The key of the last chunk returned by {@link #touchedChunk(int, int)}.
+     */
+    private long lastKey;
+
+    /**
+     * The last chunk returned by {@link #touchedChunk(int, int)}, or {@code null}.
+     */
+    private Chunk lastChunk;
+
+    /**
+     * Queue of packed square coordinates used when revealing squares, kept between reveals.
+     */
+    private long[] queue = new long[64];
+
+    /**
+     * The number of revealed squares without a mine in them.
+     */
+    @Getter
+    private long revealednumber;
+
+    /**
+     * The number of revealed squares with a mine in them.
+     */
+    @Getter
+    private long detonatednumber;
+
+    /**
+     * The number of flags placed in the grid.
+     */
+    @Getter
+    private long flagnumber;
+
+    /**
+     * Creates a {@code ChunkedMsweeperState} object caching {@link #DEFAULT_CACHED_CHUNKS} chunks.
+     *
+     * @param minesPerChunk the number of mines in each chunk
+     * @param seed          the seed the mines of each chunk are generated from
+     * @throws IllegalArgumentException if the number of mines is less than {@link #MIN_MINES_PER_CHUNK} or
+     *                                  more than {@link #MAX_MINES_PER_CHUNK}
+     */
+    public ChunkedMsweeperState(int minesPerChunk, long seed) {
+        this(minesPerChunk, seed, DEFAULT_CACHED_CHUNKS);
+    }
+
+    /**
+     * Creates a {@code ChunkedMsweeperState} object.
+     *
+     * @param minesPerChunk the number of mines in each chunk
+     * @param seed          the seed the mines of each chunk are generated from
+     * @param cacheSize     the number of chunks to cache which have not been revealed or flagged in
+     * @throws IllegalArgumentException if the number of mines is less than {@link #MIN_MINES_PER_CHUNK} or
+     *                                  more than {@link #MAX_MINES_PER_CHUNK}, or if the cache size is negative
+     */
+    public ChunkedMsweeperState(int minesPerChunk, long seed, int cacheSize) {
+        if (minesPerChunk < MIN_MINES_PER_CHUNK || minesPerChunk > MAX_MINES_PER_CHUNK || cacheSize < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.minesPerChunk = minesPerChunk;
+        this.seed = seed;
+        this.cachedChunks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    private static long key(int cx, int cy) {
+        return (long) cx << 32 | cy & 0xFFFFFFFFL;
+    }
+
+    private static int local(int x, int y) {
+        return (x & CHUNK_SIZE - 1) << CHUNK_BITS | y & CHUNK_SIZE - 1;
+    }
+
+    /**
+     * Generates the mines of a chunk from the seed and the coordinates of the chunk.
+     *
+     * @param cx the x coordinate of the chunk
+     * @param cy the y coordinate of the chunk
+     * @return the new chunk
+     */
+    private Chunk generate(int cx, int cy) {
+        Chunk chunk = new Chunk();
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(key(cx, cy))));
+        for (int i = 0; i < minesPerChunk; ++i) {
+            int index = random.nextInt(CHUNK_AREA);
+            while ((chunk.cells[index] & MINE) != 0 || isOriginArea(cx, cy, index)) {
+                index = random.nextInt(CHUNK_AREA);
+            }
+            chunk.cells[index] |= MINE;
+        }
+        return chunk;
+    }
+
+    private static boolean isOriginArea(int cx, int cy, int index) {
+        int x = (cx << CHUNK_BITS) + (index >> CHUNK_BITS);
+        int y = (cy << CHUNK_BITS) + (index & CHUNK_SIZE - 1);
+        return x >= -1 && x <= 1 && y >= -1 && y <= 1;
+    }
+
+    /**
+     * The finalizer of the 64-bit MurmurHash3 function, used to spread the bits of chunk keys.
+     */
+    private static long mix(long z) {
+        z = (z ^ z >>> 33) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ z >>> 33) * 0xC4CEB9FE1A85EC53L;
+        return z ^ z >>> 33;
+    }
+
+    /**
+     * Returns a chunk with its mines generated, but its mines around not necessarily calculated.
+     */
+    private Chunk chunk(int cx, int cy) {
+        long key = key(cx, cy);
+        Chunk chunk = touchedChunks.get(key);
+        if (chunk == null) {
+            chunk = cachedChunks.get(key);
+            if (chunk == null) {
+                chunk = generate(cx, cy);
+                cachedChunks.put(key, chunk);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Returns a chunk with its mines around calculated, and keeps it from being evicted.
+     */
+    private Chunk touchedChunk(int cx, int cy) {
+        long key = key(cx, cy);
+        if (lastChunk != null && lastKey == key) return lastChunk;
+        Chunk chunk = touchedChunks.get(key);
+        if (chunk == null) {
+            chunk = cachedChunks.remove(key);
+            if (chunk == null) chunk = generate(cx, cy);
+            if (!chunk.counted) calculateMinesAround(chunk, cx, cy);
+            touchedChunks.put(key, chunk);
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Calculates the number of mines around each square of a chunk, using the mines of the chunks around it.
+     */
+    private void calculateMinesAround(Chunk chunk, int cx, int cy) {
+        byte[][] around = new byte[9][];
+        for (int a = -1; a <= 1; ++a) {
+            for (int b = -1; b <= 1; ++b) {
+                around[(a + 1) * 3 + b + 1] = a == 0 && b == 0 ? chunk.cells : chunk(cx + a, cy + b).cells;
+            }
+        }
+        for (int i = 0; i < CHUNK_SIZE; ++i) {
+            for (int j = 0; j < CHUNK_SIZE; ++j) {
+                int count = 0;
+                for (int a = i - 1; a <= i + 1; ++a) {
+                    for (int b = j - 1; b <= j + 1; ++b) {
+                        if ((a != i || b != j) && isMine(around, a, b)) count++;
+                    }
+                }
+                chunk.cells[i << CHUNK_BITS | j] |= count;
+            }
+        }
+        chunk.counted = true;
+    }
+
+    private static boolean isMine(byte[][] around, int i, int j) {
+        int a = i < 0 ? 0 : i < CHUNK_SIZE ? 1 : 2;
+        int b = j < 0 ? 0 : j < CHUNK_SIZE ? 1 : 2;
+        return (around[a * 3 + b][local(i, j)] & MINE) != 0;
+    }
+
+    /**
+     * Places or removes a flag from the targeted square, depending on if there was one there to begin with.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     */
+    public void putFlag(int x, int y) {
+        byte[] cells = touchedChunk(x >> CHUNK_BITS, y >> CHUNK_BITS).cells;
+        int index = local(x, y);
+        if ((cells[index] & REVEALED) == 0) {
+            cells[index] ^= FLAG;
+            flagnumber += (cells[index] & FLAG) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * Reveals the targeted square, and keeps revealing squares around it, across chunks, until one is found
+     * which has a mine around it.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the number of squares revealed
+     */
+    public int reveal(int x, int y) {
+        byte[] cells = touchedChunk(x >> CHUNK_BITS, y >> CHUNK_BITS).cells;
+        if ((cells[local(x, y)] & (REVEALED | FLAG)) != 0) return 0;
+        cells[local(x, y)] |= REVEALED;
+        queue[0] = pack(x, y);
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            long square = queue[head++];
+            int sx = (int) (square >> 32);
+            int sy = (int) square;
+            int cell = touchedChunk(sx >> CHUNK_BITS, sy >> CHUNK_BITS).cells[local(sx, sy)];
+            if ((cell & MINE) != 0) {
+                detonatednumber++;
+            } else {
+                revealednumber++;
+            }
+            if ((cell & AROUND_MASK) != 0) continue;
+            if (queue.length - tail < 8) queue = Arrays.copyOf(queue, queue.length * 2);
+            for (int i = sx - 1; i <= sx + 1; ++i) {
+                for (int j = sy - 1; j <= sy + 1; ++j) {
+                    byte[] neighbours = touchedChunk(i >> CHUNK_BITS, j >> CHUNK_BITS).cells;
+                    int index = local(i, j);
+                    if ((neighbours[index] & (REVEALED | FLAG)) == 0) {
+                        neighbours[index] |= REVEALED;
+                        queue[tail++] = pack(i, j);
+                    }
+                }
+            }
+        }
+        log.debug("{} square(s) revealed from ({}, {}), {} chunk(s) loaded", tail, x, y, getLoadedChunks());
+        return tail;
+    }
+
+    private static long pack(int x, int y) {
+        return (long) x << 32 | y & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Determines what the player should see on the targeted square, without generating any chunk.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the content of the square, as to be seen by the player, encoded the same way as in
+     * {@link MsweeperState#displayGrid()}
+     */
+    public int displayValue(int x, int y) {
+        Chunk chunk = touchedChunks.get(key(x >> CHUNK_BITS, y >> CHUNK_BITS));
+        return chunk == null ? 0 : MsweeperState.displayValue(chunk.cells[local(x, y)]);
+    }
+
+    /**
+     * Checks whether the puzzle is lost.
+     *
+     * @return {@code true} if the puzzle is lost, {@code false} otherwise
+     */
+    public boolean isLost() {
+        return detonatednumber > 0;
+    }
+
+    /**
+     * Returns the number of chunks held in memory.
+     *
+     * @return the number of chunks held in memory
+     */
+    public int getLoadedChunks() {
+        return touchedChunks.size() + cachedChunks.size();
+    }
+
+    /**
+     * Returns the number of chunks which have been revealed or flagged in.
+     *
+     * @return the number of chunks which have been revealed or flagged in
+     */
+    public int getTouchedChunks() {
+        return touchedChunks.size();
+    }
+
+}
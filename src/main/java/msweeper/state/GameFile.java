@@ -0,0 +1,192 @@
+package msweeper.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Class saving games to files and loading them.
+ *
+ * <p>A file starts with a header of {@value #HEADER_SIZE} bytes: the magic number {@code MSSV}, the version of
+ * the format, a byte of flags telling whether the mines have been placed and whether the grid has a seed, the
+ * ordinal of the {@link SafeStart} of the grid or {@code -1}, a reserved byte, then the number of rows,
+ * columns, mines, revealed squares without and with a mine and flags as 32-bit integers, the seed and the elapsed
+ * time in milliseconds as 64-bit integers, all big-endian. Every square of the grid follows in a byte, row by
+ * row, in the layout {@link MsweeperState} keeps it in memory, so the squares are written and read without being
+ * converted. The string form of the {@link BoardId} of the grid comes last, after its length in bytes as a 32-bit
+ * integer, or a length of {@code 0} if the grid has none, so grids whose mines were moved after being placed keep
+ * an identifier they can be generated again from. The journal of the moves of the game follows in the same way,
+ * so a resumed game goes on recording its moves where it stopped.</p>
+ *
+ * <p>Files are written through a channel, from the pages of the grid, to a temporary file which then replaces
+ * the file, so a game loaded from the file is not affected. Files of up to {@value #MAP_THRESHOLD} bytes are
+ * read into memory at once, so they are not kept open and can be replaced or deleted right away. Larger files
+ * are mapped into memory, and the pages of the grid are only copied out of the mapping when they are first used,
+ * so loading takes the same time whatever the size of the grid. The grid drops the mapping once every page has
+ * been copied.</p>
+ */
+public class GameFile {
+
+    private static final int MAGIC = 0x4D535356;
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 48;
+
+    private static final int MAP_THRESHOLD = 1 << 24;
+
+    private static final int MINES_PLACED = 0x01;
+
+    private static final int HAS_SEED = 0x02;
+
+    private GameFile() {
+    }
+
+    /**
+     * Saves a game without a journal to a file, replacing it if it exists.
+     *
+     * @param path    the file to save the game to
+     * @param state   the state of the game
+     * @param elapsed how long the game has been played
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, MsweeperState state, Duration elapsed) throws IOException {
+        write(path, state, elapsed, null);
+    }
+
+    /**
+     * Saves a game to a file, replacing it if it exists.
+     *
+     * @param path    the file to save the game to
+     * @param state   the state of the game
+     * @param elapsed how long the game has been played
+     * @param journal the binary form of the journal of the moves of the game, or {@code null} if it has none
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, MsweeperState state, Duration elapsed, byte[] journal) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.put(VERSION);
+        header.put((byte) ((state.isMinesplaced() ? MINES_PLACED : 0)
+                | (state.getBoardId().isPresent() ? HAS_SEED : 0)));
+        header.put((byte) (state.getSafestart() == null ? -1 : state.getSafestart().ordinal()));
+        header.put((byte) 0);
+        header.putInt(state.getRownumber());
+        header.putInt(state.getColnumber());
+        header.putInt(state.getMinenumber());
+        header.putInt(state.getRevealednumber());
+        header.putInt(state.getDetonatednumber());
+        header.putInt(state.getFlagnumber());
+        header.putLong(state.getBoardId().map(BoardId::getSeed).orElse(0L));
+        header.putLong(elapsed.toMillis());
+        header.flip();
+        byte[] id = state.getBoardId().map(boardId -> boardId.toString().getBytes(StandardCharsets.US_ASCII))
+                .orElse(new byte[0]);
+        if (journal == null) journal = new byte[0];
+        ByteBuffer trailer = ByteBuffer.allocate(2 * Integer.BYTES + id.length + journal.length);
+        trailer.putInt(id.length).put(id).putInt(journal.length).put(journal).flip();
+        ByteBuffer[] buffers = new ByteBuffer[2 + state.getPageCount()];
+        buffers[0] = header;
+        for (int page = 0; page < state.getPageCount(); ++page) {
+            buffers[page + 1] = state.getPage(page);
+        }
+        buffers[buffers.length - 1] = trailer;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a game from a file.
+     *
+     * @param path the file to load the game from
+     * @return the loaded game
+     * @throws IOException if the file cannot be read or is not a valid save file
+     */
+    public static SavedGame read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a save file: " + path);
+            if (size > MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) throw new IOException("Corrupted save file: " + path);
+                }
+            }
+        }
+        if (buffer.getInt(0) != MAGIC) throw new IOException("Not a save file: " + path);
+        byte version = buffer.get(4);
+        if (version != VERSION) throw new IOException("Unsupported save file version " + version);
+        int flags = buffer.get(5);
+        int safestart = buffer.get(6);
+        int rows = buffer.getInt(8);
+        int columns = buffer.getInt(12);
+        int mines = buffer.getInt(16);
+        int[] counters = {buffer.getInt(20), buffer.getInt(24), buffer.getInt(28)};
+        long seed = buffer.getLong(32);
+        long elapsed = buffer.getLong(40);
+        boolean minesplaced = (flags & MINES_PLACED) != 0;
+        if (rows <= 0 || columns <= 0 || mines < 0
+                || (long) rows * columns > Integer.MAX_VALUE - HEADER_SIZE - Integer.BYTES
+                || buffer.capacity() < HEADER_SIZE + rows * columns + 2 * Integer.BYTES
+                || safestart < -1 || safestart >= SafeStart.values().length
+                || !minesplaced && (safestart == -1 || (flags & HAS_SEED) == 0)) {
+            throw new IOException("Corrupted save file: " + path);
+        }
+        SafeStart safeStart = safestart == -1 ? null : SafeStart.values()[safestart];
+        BoardId boardId = (flags & HAS_SEED) != 0 ? new BoardId(rows, columns, mines, safeStart, seed) : null;
+        int position = HEADER_SIZE + rows * columns;
+        byte[] id = readBytes(buffer, position);
+        if (id == null) throw new IOException("Corrupted save file: " + path);
+        position += Integer.BYTES + id.length;
+        byte[] journal = readBytes(buffer, position);
+        if (journal == null) throw new IOException("Corrupted save file: " + path);
+        position += Integer.BYTES + journal.length;
+        if (buffer.capacity() != position || (id.length > 0) != (boardId != null)) {
+            throw new IOException("Corrupted save file: " + path);
+        }
+        if (id.length > 0) {
+            try {
+                boardId = BoardId.parse(new String(id, StandardCharsets.US_ASCII));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupted save file: " + path, e);
+            }
+            if (boardId.getRows() != rows || boardId.getColumns() != columns || boardId.getMines() != mines
+                    || boardId.getSeed() != seed || boardId.getSafeStart() != safeStart) {
+                throw new IOException("Corrupted save file: " + path);
+            }
+        }
+        MsweeperState state = new MsweeperState(rows, columns, mines, counters, minesplaced, safeStart, boardId,
+                buffer.slice(HEADER_SIZE, rows * columns));
+        return new SavedGame(state, Duration.ofMillis(elapsed), journal.length == 0 ? null : journal);
+    }
+
+    /**
+     * Reads an array of bytes preceded by its length.
+     *
+     * @return the bytes, or {@code null} if they do not fit in the buffer
+     */
+    private static byte[] readBytes(ByteBuffer buffer, int position) {
+        if (position > buffer.capacity() - Integer.BYTES) return null;
+        int length = buffer.getInt(position);
+        if (length < 0 || length > buffer.capacity() - position - Integer.BYTES) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(position + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+}
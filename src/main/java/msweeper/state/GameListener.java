@@ -0,0 +1,64 @@
+package msweeper.state;
+
+/**
+ * Interface for receiving the events of a {@link MsweeperState} object.
+ * Every method does nothing by default, so implementations only override the events they need.
+ * The listeners are called on the thread making the move, and must not change the state they are called by.
+ */
+public interface GameListener {
+
+    /**
+     * Called when the mines are placed on the first reveal. It is not called for grids whose mines are placed
+     * when they are created, as no listener can be added before that.
+     *
+     * @param state the state the mines have been placed in
+     */
+    default void boardGenerated(MsweeperState state) {
+    }
+
+    /**
+     * Called once per move which has revealed squares.
+     *
+     * @param state   the state the squares have been revealed in
+     * @param changes the revealed squares, valid only until this method returns
+     */
+    default void squaresRevealed(MsweeperState state, ChangeSet changes) {
+    }
+
+    /**
+     * Called when a flag has been placed or removed.
+     *
+     * @param state   the state the flag has been placed or removed in
+     * @param x       the x coordinate of the square
+     * @param y       the y coordinate of the square
+     * @param flagged {@code true} if the flag has been placed, {@code false} if it has been removed
+     */
+    default void flagToggled(MsweeperState state, int x, int y, boolean flagged) {
+    }
+
+    /**
+     * Called when the last square without a mine has been revealed, unless the puzzle had been lost before.
+     *
+     * @param state the state which has been won
+     */
+    default void gameWon(MsweeperState state) {
+    }
+
+    /**
+     * Called when the first square with a mine has been revealed.
+     *
+     * @param state the state which has been lost
+     */
+    default void gameLost(MsweeperState state) {
+    }
+
+    /**
+     * Called at the end of every move, after the other events of the move.
+     *
+     * @param state        the state the move has been made in
+     * @param elapsedNanos the time the move has taken, in nanoseconds
+     */
+    default void moveFinished(MsweeperState state, long elapsedNanos) {
+    }
+
+}
@@ -0,0 +1,41 @@
+package msweeper.state;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Listener writing the events of a {@link MsweeperState} object to the log.
+ */
+@Slf4j
+public class LoggingGameListener implements GameListener {
+
+    @Override
+    public void boardGenerated(MsweeperState state) {
+        log.info("{} mines placed, board {}", state.getMinenumber(), state.getBoardId().map(BoardId::toString).orElse("-"));
+    }
+
+    @Override
+    public void squaresRevealed(MsweeperState state, ChangeSet changes) {
+        log.info("{} square(s) revealed from ({}, {})", changes.size(), changes.getX(0), changes.getY(0));
+    }
+
+    @Override
+    public void flagToggled(MsweeperState state, int x, int y, boolean flagged) {
+        log.info("Flag {} at square ({}, {})", flagged ? "placed" : "removed", x, y);
+    }
+
+    @Override
+    public void gameWon(MsweeperState state) {
+        log.info("The puzzle is solved");
+    }
+
+    @Override
+    public void gameLost(MsweeperState state) {
+        log.info("A mine is revealed, the puzzle is lost");
+    }
+
+    @Override
+    public void moveFinished(MsweeperState state, long elapsedNanos) {
+        log.trace("Move finished in {} ns", elapsedNanos);
+    }
+
+}
@@ -0,0 +1,80 @@
+package msweeper.state;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Listener collecting the time taken by the moves of {@link MsweeperState} objects into a histogram.
+ * Each bucket counts the moves whose time in nanoseconds has the same highest set bit, so the buckets are
+ * powers of two wide. The same histogram can listen to several states, even on different threads.
+ */
+public class MoveTimingHistogram implements GameListener {
+
+    /**
+     * The number of buckets, one for each possible highest set bit of a non-negative {@code long}, and one for zero.
+     */
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    @Override
+    public void moveFinished(MsweeperState state, long elapsedNanos) {
+        counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(elapsedNanos, 0)));
+    }
+
+    /**
+     * Returns the number of moves recorded.
+     *
+     * @return the number of moves recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of moves recorded whose time in nanoseconds is in {@code [2^(bucket-1), 2^bucket)},
+     * or zero for bucket zero.
+     *
+     * @param bucket the index of the bucket, between 0 and 63
+     * @return the number of moves in the bucket
+     */
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Returns an upper bound of the specified percentile of the times recorded, which is the upper end of the
+     * bucket the percentile falls in.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the percentile in nanoseconds, or zero if no move has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(getCount() * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank && seen > 0) return i == 0 ? 0 : (1L << i) - 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Removes every recorded move.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i) {
+            counts.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "moves=" + getCount() + ", p50<=" + getPercentile(50) + "ns, p90<=" + getPercentile(90)
+                + "ns, p99<=" + getPercentile(99) + "ns";
+    }
+
+}
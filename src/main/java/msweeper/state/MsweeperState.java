@@ -1,41 +1,118 @@
 package msweeper.state;
 
+import lombok.AccessLevel;
 import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
 /**
  * Class representing the state of the puzzle.
  */
 @Data
-@Slf4j
 public class MsweeperState implements Cloneable {
 
     /**
-     * Random object to generate random numbers.
+     * Random object to generate random numbers, seeded from {@link #boardId}.
      */
-    private Random random = new Random();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private SplittableRandom random;
 
     /**
-     * Array representing where the mines are in the grid.
+     * The identifier the grid has been generated from, or {@code null} if it has been created from a predefined grid.
      */
-    private int[][] minegrid;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BoardId boardId;
 
     /**
-     * Array representing where the flags are in the grid.
+     * The index of the square the mines have been placed around on the first reveal, or {@code -1} if they have
+     * not been, or if it is not known.
      */
-    private int[][] flaggrid;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int placedaround = -1;
 
     /**
-     * Array representing which squares are revealed in the grid.
+     * Mask of the bits of a cell holding the number of mines adjacent to it.
      */
-    private int[][] revealgrid;
+    static final int AROUND_MASK = 0x0F;
 
     /**
-     * Array representing the number of mines adjacent to each grid.
+     * Bit of a cell indicating that there is a mine in it.
      */
-    private int[][] aroundgrid;
+    static final int MINE = 0x10;
+
+    /**
+     * Bit of a cell indicating that there is a flag on it.
+     */
+    static final int FLAG = 0x20;
+
+    /**
+     * Bit of a cell indicating that it is revealed.
+     */
+    static final int REVEALED = 0x40;
+
+    /**
+     * The base 2 logarithm of the number of squares in a page.
+     */
+    private static final int PAGE_BITS = 12;
+
+    /**
+     * The number of squares in a page.
+     */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /**
+     * Array representing every square of the grid, row by row, one byte per square, split into pages of
+     * {@link #PAGE_SIZE} squares. The lower four bits of a square hold the number of adjacent mines, the rest are
+     * the {@link #MINE}, {@link #FLAG} and {@link #REVEALED} bits. Pages may be shared with snapshots, see
+     * {@link #ownedpages}. A page is {@code null} until it is first used if the grid has been loaded from
+     * {@link #source}.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private byte[][] pages;
+
+    /**
+     * The buffer the pages are read from when they are first used, every square in a byte, or {@code null} if
+     * the grid has not been loaded from a buffer. It is only read with absolute methods, so snapshots can share it.
+     * It is dropped once every page has been read, so a file mapped into memory can be released.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private ByteBuffer source;
+
+    /**
+     * The number of pages not read from {@link #source} yet.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int unreadpages;
+
+    /**
+     * Indicates for each page whether it belongs to this object only. Pages which do not are copied before
+     * they are first written.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private boolean[] ownedpages;
 
     /**
      * The number of rows in the grid.
@@ -47,21 +124,193 @@ public class MsweeperState implements Cloneable {
      */
     private int colnumber;
 
+    /**
+     * The number of mines in the grid.
+     */
+    @Setter(AccessLevel.NONE)
+    private int minenumber;
+
+    /**
+     * Indicates whether the mines have been placed in the grid.
+     */
+    @Setter(AccessLevel.NONE)
+    private boolean minesplaced;
+
+    /**
+     * The squares to keep free of mines when the mines are placed on the first reveal,
+     * or {@code null} if the mines are placed when the object is created.
+     */
+    @Setter(AccessLevel.NONE)
+    private SafeStart safestart;
+
+    /**
+     * The number of revealed squares without a mine in them.
+     */
+    @Setter(AccessLevel.NONE)
+    private int revealednumber;
+
+    /**
+     * The number of revealed squares with a mine in them.
+     */
+    @Setter(AccessLevel.NONE)
+    private int detonatednumber;
+
+    /**
+     * The number of flags placed in the grid.
+     */
+    @Setter(AccessLevel.NONE)
+    private int flagnumber;
+
+    /**
+     * The largest number of squares a grid may have.
+     */
+    private static final long MAX_SQUARES = Integer.MAX_VALUE - 8;
+
+    /**
+     * The initial capacity of the queue used when revealing squares, unless the grid is smaller.
+     */
+    private static final int INITIAL_QUEUE_CAPACITY = 64;
+
+    /**
+     * The largest capacity of the queue kept between moves. A larger queue, grown by revealing a large area, is
+     * only kept by the {@link ChangeSet} of the move, until the next move.
+     */
+    private static final int MAX_RETAINED_QUEUE_CAPACITY = 1 << 16;
+
+    /**
+     * Queue of square indices used when revealing squares, kept between moves to avoid reallocating it, unless
+     * it has grown beyond {@link #MAX_RETAINED_QUEUE_CAPACITY}. It also holds the squares changed by the last move.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int[] queue;
+
+    /**
+     * The number of squares from which a grid reveals large areas in parallel, see {@link #floodFill(int)}.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * The number of squares waiting to be expanded from which a reveal switches to the parallel flood fill, on
+     * grids large enough.
+     */
+    private static final int PARALLEL_FRONTIER = 4096;
+
+    /**
+     * The number of squares of a level expanded by one task of the parallel flood fill.
+     */
+    private static final int PARALLEL_CHUNK = 1024;
+
+    /**
+     * The number of squares from which this grid reveals large areas in parallel.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private int parallelthreshold = PARALLEL_THRESHOLD;
+
+    /**
+     * Bitmap of the squares claimed during the current parallel flood fill, one bit per square, allocated the
+     * first time it is needed and cleared after each use.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private AtomicLongArray claims;
+
+    /**
+     * The squares whose content, as seen by the player, has been changed by the last move.
+     */
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private ChangeSet changes;
+
+    /**
+     * The listeners notified of the events of this object. The array is replaced, never changed, when a listener
+     * is added or removed.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private GameListener[] listeners = new GameListener[0];
+
     /**
      * Creates a {@code MsweeperState} object with mines randomly placed in it.
      *
      * @param rows    the number of rows in the grid
      * @param columns the number of columns in the grid
      * @param mines   the number of mines to be randomly placed in the grid
-     * @throws IllegalArgumentException if there are more mines than squares, or if the number of rows or columns are not positive
+     * @throws IllegalArgumentException if there are more mines than squares, if the number of mines is negative, or if
+     *                                  the number of rows or columns are not positive
      */
     public MsweeperState(int rows, int columns, int mines) {
-        if (rows * columns >= mines && rows > 0 && columns > 0) {
+        this(rows, columns, mines, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a {@code MsweeperState} object with mines placed in it randomly, but reproducibly from a seed.
+     *
+     * @param rows    the number of rows in the grid
+     * @param columns the number of columns in the grid
+     * @param mines   the number of mines to be randomly placed in the grid
+     * @param seed    the seed of the random number generator placing the mines
+     * @throws IllegalArgumentException if there are more mines than squares, if the number of mines is negative, or if
+     *                                  the number of rows or columns are not positive
+     */
+    public MsweeperState(int rows, int columns, int mines, long seed) {
+        if (rows > 0 && columns > 0 && (long) rows * columns <= MAX_SQUARES && rows * columns >= mines
+                && mines >= 0) {
             rownumber = rows;
             colnumber = columns;
+            boardId = new BoardId(rows, columns, mines, null, seed);
+            random = new SplittableRandom(seed);
             initGrid();
-            placeMines(mines);
+            placeMines(mines, 0, -1, 0, -1);
             calculateMinesAround();
+            minesplaced = true;
+        } else throw new IllegalArgumentException();
+    }
+
+    /**
+     * Creates a {@code MsweeperState} object whose mines are placed randomly when the first square is revealed,
+     * keeping that square, and depending on {@code safeStart} the squares around it, free of mines.
+     *
+     * @param rows      the number of rows in the grid
+     * @param columns   the number of columns in the grid
+     * @param mines     the number of mines to be randomly placed in the grid
+     * @param safeStart the squares to keep free of mines around the first revealed square
+     * @throws IllegalArgumentException if there are not fewer mines than squares, if the number of mines is negative,
+     *                                  if the number of rows or columns are not positive, or if {@code safeStart} is
+     *                                  {@code null}
+     */
+    public MsweeperState(int rows, int columns, int mines, SafeStart safeStart) {
+        this(rows, columns, mines, safeStart, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a {@code MsweeperState} object whose mines are placed randomly, but reproducibly from a seed and the
+     * first revealed square, when the first square is revealed.
+     *
+     * @param rows      the number of rows in the grid
+     * @param columns   the number of columns in the grid
+     * @param mines     the number of mines to be randomly placed in the grid
+     * @param safeStart the squares to keep free of mines around the first revealed square
+     * @param seed      the seed of the random number generator placing the mines
+     * @throws IllegalArgumentException if there are not fewer mines than squares, if the number of mines is negative,
+     *                                  if the number of rows or columns are not positive, or if {@code safeStart} is
+     *                                  {@code null}
+     */
+    public MsweeperState(int rows, int columns, int mines, SafeStart safeStart, long seed) {
+        if (rows > 0 && columns > 0 && (long) rows * columns <= MAX_SQUARES && rows * columns > mines
+                && mines >= 0 && safeStart != null) {
+            rownumber = rows;
+            colnumber = columns;
+            initGrid();
+            minenumber = mines;
+            safestart = safeStart;
+            boardId = new BoardId(rows, columns, mines, safeStart, seed);
+            random = new SplittableRandom(seed);
         } else throw new IllegalArgumentException();
     }
 
@@ -78,60 +327,329 @@ public class MsweeperState implements Cloneable {
         initGrid();
         for (int i = 0; i < rownumber; ++i) {
             for (int j = 0; j < colnumber; ++j) {
-                minegrid[i][j] = incomingminegrid[i][j];
+                if (incomingminegrid[i][j] == 1) {
+                    setBits(i * colnumber + j, MINE);
+                    minenumber++;
+                }
             }
         }
         calculateMinesAround();
+        minesplaced = true;
     }
 
     private void initGrid() {
-        minegrid = new int[rownumber][colnumber];
-        flaggrid = new int[rownumber][colnumber];
-        revealgrid = new int[rownumber][colnumber];
-        aroundgrid = new int[rownumber][colnumber];
+        int size = rownumber * colnumber;
+        pages = new byte[(size + PAGE_SIZE - 1) >> PAGE_BITS][];
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = new byte[Math.min(PAGE_SIZE, size - (i << PAGE_BITS))];
+        }
+        ownedpages = new boolean[pages.length];
+        Arrays.fill(ownedpages, true);
+        queue = new int[Math.min(INITIAL_QUEUE_CAPACITY, size)];
+        changes = new ChangeSet(colnumber);
+    }
 
-        for (int i = 0; i < rownumber; ++i) {
-            for (int j = 0; j < colnumber; ++j) {
-                minegrid[i][j] = 0;
-                flaggrid[i][j] = 0;
-                revealgrid[i][j] = 0;
-                aroundgrid[i][j] = 0;
-            }
+    /**
+     * Creates a {@code MsweeperState} object from a saved game, whose squares are read from a buffer page by page,
+     * as they are first used.
+     *
+     * @param rows         the number of rows in the grid
+     * @param columns      the number of columns in the grid
+     * @param mines        the number of mines in the grid
+     * @param counters     the number of revealed squares without and with a mine, and of flags
+     * @param minesPlaced  whether the mines have been placed
+     * @param safeStart    the squares kept free of mines when the mines are placed on the first reveal, or
+     *                     {@code null}
+     * @param boardId      the identifier the grid has been generated from, or {@code null}
+     * @param source       the buffer holding every square of the grid in a byte, row by row
+     */
+    MsweeperState(int rows, int columns, int mines, int[] counters, boolean minesPlaced, SafeStart safeStart,
+                  BoardId boardId, ByteBuffer source) {
+        rownumber = rows;
+        colnumber = columns;
+        minenumber = mines;
+        revealednumber = counters[0];
+        detonatednumber = counters[1];
+        flagnumber = counters[2];
+        safestart = safeStart;
+        minesplaced = minesPlaced;
+        this.boardId = boardId;
+        if (!minesplaced) random = new SplittableRandom(boardId.getSeed());
+        this.source = source;
+        int size = rows * columns;
+        pages = new byte[(size + PAGE_SIZE - 1) >> PAGE_BITS][];
+        ownedpages = new boolean[pages.length];
+        unreadpages = pages.length;
+        queue = new int[Math.min(INITIAL_QUEUE_CAPACITY, size)];
+        changes = new ChangeSet(colnumber);
+    }
+
+    /**
+     * Creates a {@code MsweeperState} object sharing the pages of another one.
+     *
+     * @param other the object to share the pages of
+     */
+    private MsweeperState(MsweeperState other) {
+        rownumber = other.rownumber;
+        colnumber = other.colnumber;
+        boardId = other.boardId;
+        minenumber = other.minenumber;
+        minesplaced = other.minesplaced;
+        safestart = other.safestart;
+        revealednumber = other.revealednumber;
+        detonatednumber = other.detonatednumber;
+        flagnumber = other.flagnumber;
+        parallelthreshold = other.parallelthreshold;
+        if (!minesplaced) random = new SplittableRandom(boardId.getSeed());
+        placedaround = other.placedaround;
+        source = other.source;
+        unreadpages = other.unreadpages;
+        pages = other.pages.clone();
+        ownedpages = new boolean[pages.length];
+        Arrays.fill(other.ownedpages, false);
+        queue = new int[Math.min(INITIAL_QUEUE_CAPACITY, rownumber * colnumber)];
+        changes = new ChangeSet(colnumber);
+    }
+
+    /**
+     * Creates a copy of this object, which can be changed independently of it. The grid is not copied, but shared
+     * between the two objects until either of them changes it, and then only the changed pages are copied.
+     * If the mines have not been placed yet, the copy places them the same way as this object would.
+     *
+     * @return the copy of this object
+     */
+    public MsweeperState snapshot() {
+        return new MsweeperState(this);
+    }
+
+    /**
+     * Creates a copy of this object, the same way as {@link #snapshot()}.
+     *
+     * @return the copy of this object
+     */
+    @Override
+    public MsweeperState clone() {
+        return snapshot();
+    }
+
+    private int cell(int index) {
+        byte[] page = pages[index >> PAGE_BITS];
+        if (page == null) page = readPage(index >> PAGE_BITS);
+        return page[index & PAGE_SIZE - 1];
+    }
+
+    /**
+     * Reads a page from {@link #source}, which then belongs to this object only, and drops the source after the
+     * last page.
+     *
+     * @param page the index of the page
+     * @return the page
+     */
+    private byte[] readPage(int page) {
+        byte[] bytes = new byte[pageLength(page)];
+        source.get(page << PAGE_BITS, bytes);
+        pages[page] = bytes;
+        ownedpages[page] = true;
+        if (--unreadpages == 0) source = null;
+        return bytes;
+    }
+
+    private int pageLength(int page) {
+        return Math.min(PAGE_SIZE, rownumber * colnumber - (page << PAGE_BITS));
+    }
+
+    /**
+     * Returns every page of the grid, reading the pages not used yet.
+     *
+     * @return the pages of the grid
+     */
+    @EqualsAndHashCode.Include
+    private byte[][] grid() {
+        for (int page = 0; page < pages.length; ++page) {
+            if (pages[page] == null) readPage(page);
+        }
+        return pages;
+    }
+
+    /**
+     * Returns the number of pages the grid is split into.
+     *
+     * @return the number of pages
+     */
+    int getPageCount() {
+        return pages.length;
+    }
+
+    /**
+     * Returns a read-only buffer over a page of the grid, without reading it from {@link #source} if it has
+     * not been used yet.
+     *
+     * @param page the index of the page
+     * @return the buffer holding the squares of the page
+     */
+    ByteBuffer getPage(int page) {
+        if (pages[page] == null) return source.slice(page << PAGE_BITS, pageLength(page)).asReadOnlyBuffer();
+        return ByteBuffer.wrap(pages[page]).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the page holding a square, copying it first if it is shared with another object.
+     *
+     * @param index the index of the square
+     * @return the page holding the square, which can be written
+     */
+    private byte[] writablePage(int index) {
+        int page = index >> PAGE_BITS;
+        if (pages[page] == null) return readPage(page);
+        if (!ownedpages[page]) {
+            pages[page] = pages[page].clone();
+            ownedpages[page] = true;
         }
+        return pages[page];
+    }
+
+    private void setBits(int index, int bits) {
+        writablePage(index)[index & PAGE_SIZE - 1] |= bits;
+    }
+
+    private void clearBits(int index, int bits) {
+        writablePage(index)[index & PAGE_SIZE - 1] &= ~bits;
     }
 
     /**
-     * Places a number of mines in the grid, randomly.
+     * Places a number of mines in the grid, randomly, outside of a rectangle of squares to be kept free of mines.
+     * If more than half of the available squares are to be mined, every available square is mined first and then
+     * the squares to be left empty are picked instead, so that each random pick hits a square of the wanted kind
+     * with a probability of at least one half.
      *
      * @param numberofminestoplace the number of mines to place in the grid
+     * @param firstrow             the first row of the squares to be kept free of mines
+     * @param lastrow              the last row of the squares to be kept free of mines, less than {@code firstrow}
+     *                             if no square is to be kept free of mines
+     * @param firstcol             the first column of the squares to be kept free of mines
+     * @param lastcol              the last column of the squares to be kept free of mines
+     */
+    private void placeMines(int numberofminestoplace, int firstrow, int lastrow, int firstcol, int lastcol) {
+        int size = rownumber * colnumber;
+        int excluded = lastrow < firstrow ? 0 : (lastrow - firstrow + 1) * (lastcol - firstcol + 1);
+        if (numberofminestoplace <= (size - excluded) / 2) {
+            for (int i = 0; i < numberofminestoplace; ++i) {
+                int index = random.nextInt(size);
+                while ((cell(index) & MINE) != 0 || isInside(index, firstrow, lastrow, firstcol, lastcol)) {
+                    index = random.nextInt(size);
+                }
+                setBits(index, MINE);
+            }
+        } else {
+            for (int index = 0; index < size; ++index) {
+                if (!isInside(index, firstrow, lastrow, firstcol, lastcol)) setBits(index, MINE);
+            }
+            for (int i = numberofminestoplace; i < size - excluded; ++i) {
+                int index = random.nextInt(size);
+                while ((cell(index) & MINE) == 0) {
+                    index = random.nextInt(size);
+                }
+                clearBits(index, MINE);
+            }
+        }
+        minenumber = numberofminestoplace;
+    }
+
+    private boolean isInside(int index, int firstrow, int lastrow, int firstcol, int lastcol) {
+        int x = index / colnumber;
+        int y = index - x * colnumber;
+        return x >= firstrow && x <= lastrow && y >= firstcol && y <= lastcol;
+    }
+
+    /**
+     * Places the mines which have been held back until the first reveal, keeping the squares given by
+     * {@link #safestart} around the revealed square free of mines.
+     *
+     * @param x the x coordinate of the first revealed square
+     * @param y the y coordinate of the first revealed square
      */
-    private void placeMines(int numberofminestoplace) {
-        for (int i = 0; i < numberofminestoplace; ++i) {
-            int x = random.nextInt(rownumber);
-            int y = random.nextInt(colnumber);
-            while (minegrid[x][y] == 1) {
-                x = random.nextInt(rownumber);
-                y = random.nextInt(colnumber);
+    void placeMinesAround(int x, int y) {
+        placedaround = x * colnumber + y;
+        if (safestart == SafeStart.AREA) {
+            int firstrow = Math.max(x - 1, 0);
+            int lastrow = Math.min(x + 1, rownumber - 1);
+            int firstcol = Math.max(y - 1, 0);
+            int lastcol = Math.min(y + 1, colnumber - 1);
+            if (rownumber * colnumber - (lastrow - firstrow + 1) * (lastcol - firstcol + 1) >= minenumber) {
+                placeMines(minenumber, firstrow, lastrow, firstcol, lastcol);
+            } else {
+                placeMines(minenumber, x, x, y, y);
             }
-            minegrid[x][y] = 1;
+        } else {
+            placeMines(minenumber, x, x, y, y);
+        }
+        calculateMinesAround();
+        minesplaced = true;
+        for (GameListener listener : listeners) {
+            listener.boardGenerated(this);
         }
     }
 
     /**
-     * Calculates the number of mines around each square in the grid, and sets the values of {@code aroundgrid} to it.
+     * Moves a mine to a square without one, updating the numbers around both squares. Neither square may have been
+     * revealed, but the numbers of revealed squares around them change, without the listeners being notified.
+     * The identifier of the grid records the move, so the grid can still be generated again, unless the square the
+     * mines have been placed around is not known, as for games loaded from a file, in which case the grid loses its
+     * identifier.
+     *
+     * @param fromX the x coordinate of the square of the mine
+     * @param fromY the y coordinate of the square of the mine
+     * @param toX   the x coordinate of the square to move the mine to
+     * @param toY   the y coordinate of the square to move the mine to
+     * @throws IllegalArgumentException if either square does not exist or has been revealed, if there is no mine in
+     *                                  the first square or there is one in the second
+     */
+    public void moveMine(int fromX, int fromY, int toX, int toY) {
+        if (!isExistingSquare(fromX, fromY) || !isExistingSquare(toX, toY)) throw new IllegalArgumentException();
+        int from = fromX * colnumber + fromY;
+        int to = toX * colnumber + toY;
+        if ((cell(from) & (MINE | REVEALED)) != MINE || (cell(to) & (MINE | REVEALED)) != 0) {
+            throw new IllegalArgumentException();
+        }
+        clearBits(from, MINE);
+        addAround(fromX, fromY, -1);
+        setBits(to, MINE);
+        addAround(toX, toY, 1);
+        if (boardId != null) {
+            int start = boardId.getStart() >= 0 ? boardId.getStart() : placedaround;
+            boardId = safestart != null && start < 0 ? null : boardId.withMove(start, from, to);
+        }
+    }
+
+    private void addAround(int x, int y, int delta) {
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                int neighbour = i * colnumber + j;
+                if (neighbour != x * colnumber + y) writablePage(neighbour)[neighbour & PAGE_SIZE - 1] += delta;
+            }
+        }
+    }
+
+    /**
+     * Calculates the number of mines around each square in the grid, and stores it in the lower bits of each cell.
+     * The neighbourhood of each mine is clamped to the grid once, instead of checking each neighbour separately.
      */
     private void calculateMinesAround() {
         for (int i = 0; i < rownumber; ++i) {
+            int firstrow = Math.max(i - 1, 0);
+            int lastrow = Math.min(i + 1, rownumber - 1);
             for (int j = 0; j < colnumber; ++j) {
-                if (minegrid[i][j] == 1) {
-                    if (isExistingSquare(i - 1, j - 1)) aroundgrid[i - 1][j - 1]++;
-                    if (isExistingSquare(i - 1, j)) aroundgrid[i - 1][j]++;
-                    if (isExistingSquare(i - 1, j + 1)) aroundgrid[i - 1][j + 1]++;
-                    if (isExistingSquare(i + 1, j - 1)) aroundgrid[i + 1][j - 1]++;
-                    if (isExistingSquare(i + 1, j)) aroundgrid[i + 1][j]++;
-                    if (isExistingSquare(i + 1, j + 1)) aroundgrid[i + 1][j + 1]++;
-                    if (isExistingSquare(i, j - 1)) aroundgrid[i][j - 1]++;
-                    if (isExistingSquare(i, j + 1)) aroundgrid[i][j + 1]++;
+                int index = i * colnumber + j;
+                if ((cell(index) & MINE) != 0) {
+                    int firstcol = Math.max(j - 1, 0);
+                    int lastcol = Math.min(j + 1, colnumber - 1);
+                    for (int x = firstrow; x <= lastrow; ++x) {
+                        for (int y = firstcol; y <= lastcol; ++y) {
+                            int neighbour = x * colnumber + y;
+                            writablePage(neighbour)[neighbour & PAGE_SIZE - 1]++;
+                        }
+                    }
+                    writablePage(index)[index & PAGE_SIZE - 1]--;
                 }
             }
         }
@@ -147,6 +665,7 @@ public class MsweeperState implements Cloneable {
     private boolean isValidMinefield(int[][] minefield) {
         int firstrowlength = minefield[0].length;
         if (firstrowlength == 0) return false;
+        if ((long) minefield.length * firstrowlength > MAX_SQUARES) return false;
         for (int[] row : minefield) {
             if (row.length != firstrowlength) return false;
             for (int field : row) {
@@ -156,8 +675,128 @@ public class MsweeperState implements Cloneable {
         return true;
     }
 
+    /**
+     * Returns the identifier of the grid, which can be used to generate it again.
+     *
+     * @return an {@link Optional} object wrapping the identifier of the grid, which is empty if the grid has
+     * been created from a predefined grid
+     */
+    public Optional<BoardId> getBoardId() {
+        return Optional.ofNullable(boardId);
+    }
+
+    /**
+     * Sets the identifier of the grid, once the grid has been generated from it.
+     *
+     * @param boardId the identifier of the grid
+     */
+    void setBoardId(BoardId boardId) {
+        this.boardId = boardId;
+    }
+
+    /**
+     * Checks whether there is a mine in the targeted square.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return {@code true} if there is a mine in the square, {@code false} otherwise
+     */
+    public boolean isMine(int x, int y) {
+        return (cell(x * colnumber + y) & MINE) != 0;
+    }
+
+    /**
+     * Checks whether there is a flag on the targeted square.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return {@code true} if there is a flag on the square, {@code false} otherwise
+     */
+    public boolean isFlagged(int x, int y) {
+        return (cell(x * colnumber + y) & FLAG) != 0;
+    }
+
+    /**
+     * Checks whether the targeted square is revealed.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return {@code true} if the square is revealed, {@code false} otherwise
+     */
+    public boolean isRevealed(int x, int y) {
+        return (cell(x * colnumber + y) & REVEALED) != 0;
+    }
+
+    /**
+     * Returns the number of mines adjacent to the targeted square.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the number of mines adjacent to the square
+     */
+    public int getMinesAround(int x, int y) {
+        return cell(x * colnumber + y) & AROUND_MASK;
+    }
+
+    /**
+     * Returns an array representing where the mines are in the grid.
+     * The array is a copy, changing it does not affect the state.
+     *
+     * @return an array containing {@code 1} where there is a mine, and {@code 0} elsewhere
+     */
+    public int[][] getMinegrid() {
+        return layer(MINE);
+    }
+
+    /**
+     * Returns an array representing where the flags are in the grid.
+     * The array is a copy, changing it does not affect the state.
+     *
+     * @return an array containing {@code 1} where there is a flag, and {@code 0} elsewhere
+     */
+    public int[][] getFlaggrid() {
+        return layer(FLAG);
+    }
+
+    /**
+     * Returns an array representing which squares are revealed in the grid.
+     * The array is a copy, changing it does not affect the state.
+     *
+     * @return an array containing {@code 1} where the square is revealed, and {@code 0} elsewhere
+     */
+    public int[][] getRevealgrid() {
+        return layer(REVEALED);
+    }
+
+    /**
+     * Returns an array representing the number of mines adjacent to each square.
+     * The array is a copy, changing it does not affect the state.
+     *
+     * @return an array containing the number of adjacent mines of each square
+     */
+    public int[][] getAroundgrid() {
+        int[][] tempgrid = new int[rownumber][colnumber];
+        for (int i = 0; i < rownumber; ++i) {
+            for (int j = 0; j < colnumber; ++j) {
+                tempgrid[i][j] = cell(i * colnumber + j) & AROUND_MASK;
+            }
+        }
+        return tempgrid;
+    }
+
+    private int[][] layer(int bit) {
+        int[][] tempgrid = new int[rownumber][colnumber];
+        for (int i = 0; i < rownumber; ++i) {
+            for (int j = 0; j < colnumber; ++j) {
+                if ((cell(i * colnumber + j) & bit) != 0) tempgrid[i][j] = 1;
+            }
+        }
+        return tempgrid;
+    }
+
     /**
      * Places or removes a flag from the targeted square, depending on if there was one there to begin with.
+     * The square is available from {@link #getChanges()} afterwards if it has changed.
      *
      * @param x the x coordinate of the square
      * @param y the y coordinate of the square
@@ -165,65 +804,334 @@ public class MsweeperState implements Cloneable {
      */
     public void putFlag(int x, int y) {
         if (isExistingSquare(x, y)) {
-            if (revealgrid[x][y] == 0) {
-                flaggrid[x][y] = (flaggrid[x][y] + 1) % 2;
-                log.info("Flag placed/removed at square ({}, {})", x, y);;
+            long start = listeners.length > 0 ? System.nanoTime() : 0;
+            int index = x * colnumber + y;
+            changes.set(queue, 0);
+            if ((cell(index) & REVEALED) == 0) {
+                writablePage(index)[index & PAGE_SIZE - 1] ^= FLAG;
+                queue[0] = index;
+                changes.set(queue, 1);
+                boolean flagged = (cell(index) & FLAG) != 0;
+                flagnumber += flagged ? 1 : -1;
+                for (GameListener listener : listeners) {
+                    listener.flagToggled(this, x, y, flagged);
+                }
+            }
+            finishMove(start, false, true, true);
+        } else throw new IllegalArgumentException();
+    }
+
+    /**
+     * Reveals the targeted square, and keeps revealing squares around it until one is found which has a mine around it.
+     * If the mines have not been placed yet, they are placed first, keeping the targeted square free of mines.
+     * The squares to be revealed are kept in a queue which is reused between calls, so large empty areas
+     * can be revealed without deep recursion. The revealed squares are available from {@link #getChanges()} afterwards.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the number of squares revealed
+     * @throws IllegalArgumentException if the targeted square does not exist
+     */
+    public int reveal(int x, int y) {
+        if (isExistingSquare(x, y)) {
+            long start = listeners.length > 0 ? System.nanoTime() : 0;
+            boolean waslost = isLost();
+            boolean waswon = isWon();
+            int index = x * colnumber + y;
+            changes.set(queue, 0);
+            int opened = 0;
+            if ((cell(index) & (REVEALED | FLAG)) == 0) {
+                if (!minesplaced) placeMinesAround(x, y);
+                setBits(index, REVEALED);
+                queue[0] = index;
+                opened = floodFill(1);
             }
+            finishMove(start, opened > 0, waslost, waswon);
+            return opened;
         } else throw new IllegalArgumentException();
     }
 
     /**
-     * Reveals the targeted square, and recursively reveals squares around it until one is found which has a mine around it.
+     * Reveals every square around the targeted square which has no flag, if the targeted square is a revealed
+     * number with as many flags around it as mines. The squares are revealed in a single flood fill started from
+     * all of them, so the move reports its changes and the end of the game once. The revealed squares are
+     * available from {@link #getChanges()} afterwards. Nothing happens if the number is not satisfied.
      *
      * @param x the x coordinate of the square
      * @param y the y coordinate of the square
+     * @return the number of squares revealed
      * @throws IllegalArgumentException if the targeted square does not exist
      */
-    public void reveal(int x, int y) {
+    public int chord(int x, int y) {
         if (isExistingSquare(x, y)) {
-            if (revealgrid[x][y] == 0 && flaggrid[x][y] == 0) {
-                log.info("Square at ({}, {}) is revealed", x, y);
-                revealgrid[x][y] = 1;
-                if (aroundgrid[x][y] == 0) {
-                    if (isExistingSquare(x - 1, y - 1)) reveal(x - 1, y - 1);
-                    if (isExistingSquare(x - 1, y)) reveal(x - 1, y);
-                    if (isExistingSquare(x - 1, y + 1)) reveal(x - 1, y + 1);
-                    if (isExistingSquare(x, y - 1)) reveal(x, y - 1);
-                    if (isExistingSquare(x, y + 1)) reveal(x, y + 1);
-                    if (isExistingSquare(x + 1, y - 1)) reveal(x + 1, y - 1);
-                    if (isExistingSquare(x + 1, y)) reveal(x + 1, y);
-                    if (isExistingSquare(x + 1, y + 1)) reveal(x + 1, y + 1);
+            long start = listeners.length > 0 ? System.nanoTime() : 0;
+            boolean waslost = isLost();
+            boolean waswon = isWon();
+            int cell = cell(x * colnumber + y);
+            changes.set(queue, 0);
+            int opened = 0;
+            if ((cell & (REVEALED | MINE)) == REVEALED && (cell & AROUND_MASK) != 0
+                    && countFlagsAround(x, y) == (cell & AROUND_MASK)) {
+                int tail = 0;
+                for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+                    for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                        int neighbour = i * colnumber + j;
+                        if ((cell(neighbour) & (REVEALED | FLAG)) == 0) {
+                            setBits(neighbour, REVEALED);
+                            queue[tail++] = neighbour;
+                        }
+                    }
                 }
+                if (tail > 0) opened = floodFill(tail);
             }
+            finishMove(start, opened > 0, waslost, waswon);
+            return opened;
         } else throw new IllegalArgumentException();
     }
 
+    private int countFlagsAround(int x, int y) {
+        int flags = 0;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, rownumber - 1); ++i) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, colnumber - 1); ++j) {
+                if ((cell(i * colnumber + j) & FLAG) != 0) flags++;
+            }
+        }
+        return flags;
+    }
+
     /**
-     * Checks whether the puzzle is lost.
+     * Notifies the listeners of the squares revealed by a move, of the end of the game if the move has ended it,
+     * and of the end of the move.
      *
-     * @return {@code true} if the puzzle is lost, {@code false} otherwise
+     * @param start    the value of {@link System#nanoTime()} at the start of the move
+     * @param revealed whether the move has revealed squares
+     * @param waslost  whether the puzzle was lost before the move, or {@code true} if the move cannot end the game
+     * @param waswon   whether the puzzle was won before the move, or {@code true} if the move cannot end the game
      */
-    public boolean isLost() {
-        for (int i = 0; i < rownumber; ++i) {
-            for (int j = 0; j < colnumber; ++j) {
-                if (minegrid[i][j] == 1 && revealgrid[i][j] == 1) return true;
+    private void finishMove(long start, boolean revealed, boolean waslost, boolean waswon) {
+        if (listeners.length == 0) return;
+        boolean lost = !waslost && isLost();
+        boolean won = !waswon && !isLost() && isWon();
+        for (GameListener listener : listeners) {
+            if (revealed) listener.squaresRevealed(this, changes);
+            if (lost) listener.gameLost(this);
+            if (won) listener.gameWon(this);
+        }
+        long elapsed = System.nanoTime() - start;
+        for (GameListener listener : listeners) {
+            listener.moveFinished(this, elapsed);
+        }
+    }
+
+    /**
+     * Adds a listener to be notified of the events of this object. Listeners are not copied to snapshots.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(GameListener listener) {
+        GameListener[] newlisteners = Arrays.copyOf(listeners, listeners.length + 1);
+        newlisteners[listeners.length] = Objects.requireNonNull(listener);
+        listeners = newlisteners;
+    }
+
+    /**
+     * Removes a listener added by {@link #addListener(GameListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(GameListener listener) {
+        for (int i = 0; i < listeners.length; ++i) {
+            if (listeners[i] == listener) {
+                GameListener[] newlisteners = new GameListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newlisteners, 0, i);
+                System.arraycopy(listeners, i + 1, newlisteners, i, newlisteners.length - i);
+                listeners = newlisteners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the capacity of the queue kept between moves.
+     *
+     * @return the capacity of the queue
+     */
+    int getQueueCapacity() {
+        return queue.length;
+    }
+
+    /**
+     * Sets the number of squares from which this grid reveals large areas in parallel.
+     *
+     * @param squares the number of squares
+     */
+    void setParallelThreshold(int squares) {
+        parallelthreshold = squares;
+    }
+
+    /**
+     * Reveals the squares around the already revealed squares at the start of the queue breadth-first, as long as
+     * the squares being expanded have no mines around them. On grids of at least {@link #parallelthreshold}
+     * squares, once enough squares are waiting to be expanded, the rest is revealed by
+     * {@link #parallelFloodFill(int, int)}.
+     *
+     * @param tail the number of revealed squares to start from, at the start of the queue
+     * @return the number of squares revealed, including the starting ones
+     */
+    private int floodFill(int tail) {
+        int head = 0;
+        boolean parallel = rownumber * colnumber >= parallelthreshold;
+        while (head < tail) {
+            if (parallel && tail - head >= PARALLEL_FRONTIER) {
+                tail = parallelFloodFill(head, tail);
+                break;
+            }
+            int index = queue[head++];
+            int cell = cell(index);
+            if ((cell & MINE) != 0) {
+                detonatednumber++;
+            } else {
+                revealednumber++;
+            }
+            if ((cell & AROUND_MASK) != 0) continue;
+            int x = index / colnumber;
+            int y = index - x * colnumber;
+            int firstcol = Math.max(y - 1, 0);
+            int lastcol = Math.min(y + 1, colnumber - 1);
+            int lastrow = Math.min(x + 1, rownumber - 1);
+            if (queue.length - tail < 8 && queue.length < rownumber * colnumber) {
+                queue = Arrays.copyOf(queue, (int) Math.min((long) queue.length * 2, rownumber * colnumber));
+            }
+            for (int i = Math.max(x - 1, 0); i <= lastrow; ++i) {
+                for (int j = firstcol; j <= lastcol; ++j) {
+                    int neighbour = i * colnumber + j;
+                    if ((cell(neighbour) & (REVEALED | FLAG)) == 0) {
+                        setBits(neighbour, REVEALED);
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+        changes.set(queue, tail);
+        if (queue.length > MAX_RETAINED_QUEUE_CAPACITY) {
+            queue = new int[INITIAL_QUEUE_CAPACITY];
+        }
+        return tail;
+    }
+
+    /**
+     * Reveals the squares around the revealed squares waiting in the queue level by level, the squares of each
+     * level being expanded in parallel on the common fork-join pool. A square is revealed by the task which first
+     * claims its bit in {@link #claims}, so no square is revealed twice. Every page is made writable beforehand,
+     * as the pages cannot be copied while the tasks write them.
+     *
+     * @param head the index in the queue of the first square waiting to be expanded
+     * @param tail the number of squares in the queue
+     * @return the number of squares in the queue at the end
+     */
+    private int parallelFloodFill(int head, int tail) {
+        for (int page = 0; page < pages.length; ++page) {
+            writablePage(page << PAGE_BITS);
+        }
+        int size = rownumber * colnumber;
+        if (claims == null) claims = new AtomicLongArray((size + 63) >> 6);
+        int first = tail;
+        while (head < tail) {
+            int from = head;
+            int to = tail;
+            int[] level = queue;
+            int[][] found = IntStream.range(0, (to - from + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK).parallel()
+                    .mapToObj(chunk -> expand(level, from + chunk * PARALLEL_CHUNK,
+                            Math.min(from + (chunk + 1) * PARALLEL_CHUNK, to)))
+                    .toArray(int[][]::new);
+            for (int i = from; i < to; ++i) {
+                if ((cell(queue[i]) & MINE) != 0) {
+                    detonatednumber++;
+                } else {
+                    revealednumber++;
+                }
+            }
+            head = to;
+            for (int[] squares : found) {
+                int count = squares[0];
+                if (queue.length - tail < count) {
+                    queue = Arrays.copyOf(queue, (int) Math.min(Math.max((long) queue.length * 2, tail + count), size));
+                }
+                System.arraycopy(squares, 1, queue, tail, count);
+                tail += count;
+            }
+        }
+        for (int i = first; i < tail; ++i) {
+            claims.set(queue[i] >> 6, 0);
+        }
+        return tail;
+    }
+
+    /**
+     * Expands a part of a level of the parallel flood fill, revealing the squares it claims.
+     *
+     * @param level the array holding the squares of the level
+     * @param from  the index of the first square to expand
+     * @param to    the index after the last square to expand
+     * @return an array holding the number of squares revealed, then the squares revealed
+     */
+    private int[] expand(int[] level, int from, int to) {
+        int[] found = new int[1 + Math.min(8 * (to - from), rownumber * colnumber)];
+        int count = 0;
+        for (int k = from; k < to; ++k) {
+            int index = level[k];
+            if ((cell(index) & AROUND_MASK) != 0) continue;
+            int x = index / colnumber;
+            int y = index - x * colnumber;
+            int firstcol = Math.max(y - 1, 0);
+            int lastcol = Math.min(y + 1, colnumber - 1);
+            int lastrow = Math.min(x + 1, rownumber - 1);
+            for (int i = Math.max(x - 1, 0); i <= lastrow; ++i) {
+                for (int j = firstcol; j <= lastcol; ++j) {
+                    int neighbour = i * colnumber + j;
+                    if ((cell(neighbour) & (REVEALED | FLAG)) == 0 && claim(neighbour)) {
+                        pages[neighbour >> PAGE_BITS][neighbour & PAGE_SIZE - 1] |= REVEALED;
+                        found[++count] = neighbour;
+                    }
+                }
             }
         }
+        found[0] = count;
+        return found;
+    }
+
+    /**
+     * Claims a square for the task calling it.
+     *
+     * @return {@code true} if the square has not been claimed before, {@code false} otherwise
+     */
+    private boolean claim(int index) {
+        long bit = 1L << (index & 63);
+        int word = index >> 6;
+        long bits = claims.get(word);
+        while ((bits & bit) == 0) {
+            if (claims.compareAndSet(word, bits, bits | bit)) return true;
+            bits = claims.get(word);
+        }
         return false;
     }
 
+    /**
+     * Checks whether the puzzle is lost.
+     *
+     * @return {@code true} if the puzzle is lost, {@code false} otherwise
+     */
+    public boolean isLost() {
+        return detonatednumber > 0;
+    }
+
     /**
      * Checks whether the puzzle is won.
      *
      * @return {@code true} if the puzzle is won, {@code false} otherwise
      */
     public boolean isWon() {
-        for (int i = 0; i < rownumber; ++i) {
-            for (int j = 0; j < colnumber; ++j) {
-                if (minegrid[i][j] == 0 && revealgrid[i][j] == 0) return false;
-            }
-        }
-        return true;
+        return revealednumber == rownumber * colnumber - minenumber;
     }
 
     /**
@@ -232,12 +1140,16 @@ public class MsweeperState implements Cloneable {
      * @return {@code false} if a reveal has been made, {@code true} otherwise
      */
     public boolean isHidden() {
-        for (int i = 0; i < rownumber; ++i) {
-            for (int j = 0; j < colnumber; j++) {
-                if (revealgrid[i][j] == 1) return false;
-            }
-        }
-        return true;
+        return revealednumber == 0 && detonatednumber == 0;
+    }
+
+    /**
+     * Returns the number of mines not yet marked with a flag. It is negative if there are more flags than mines.
+     *
+     * @return the number of mines minus the number of flags placed
+     */
+    public int getRemainingMines() {
+        return minenumber - flagnumber;
     }
 
     /**
@@ -249,8 +1161,9 @@ public class MsweeperState implements Cloneable {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < rownumber; ++i) {
             for (int j = 0; j < colnumber; ++j) {
-                sb.append(minegrid[i][j]).append(',').append(aroundgrid[i][j]).append(',').append(flaggrid[i][j])
-                        .append(',').append(revealgrid[i][j]).append(' ');
+                int cell = cell(i * colnumber + j);
+                sb.append((cell & MINE) != 0 ? 1 : 0).append(',').append(cell & AROUND_MASK).append(',')
+                        .append((cell & FLAG) != 0 ? 1 : 0).append(',').append((cell & REVEALED) != 0 ? 1 : 0).append(' ');
             }
             sb.append('\n');
         }
@@ -258,9 +1171,33 @@ public class MsweeperState implements Cloneable {
         return sb.toString();
     }
 
+    /**
+     * Determines what the player should see on the targeted square.
+     *
+     * @param x the x coordinate of the square
+     * @param y the y coordinate of the square
+     * @return the content of the square, as to be seen by the player, encoded the same way as in {@link #displayGrid()}
+     */
+    public int displayValue(int x, int y) {
+        return displayValue(cell(x * colnumber + y));
+    }
+
+    static int displayValue(int cell) {
+        if ((cell & FLAG) != 0) {
+            return 1;
+        } else if ((cell & REVEALED) == 0) {
+            return 0;
+        } else if ((cell & MINE) != 0) {
+            return 2;
+        } else {
+            return (cell & AROUND_MASK) + 3;
+        }
+    }
 
     /**
      * A function which determines what the player should see on each square of the grid.
+     * It creates a new array on each call, so it is meant for drawing the whole grid, while the changes made by
+     * each move are available from {@link #getChanges()}.
      *
      * @return an array representing the content of each grid, as to be seen by the player
      */
@@ -268,15 +1205,7 @@ public class MsweeperState implements Cloneable {
         int[][] tempgrid = new int[rownumber][colnumber];
         for (int i = 0; i < rownumber; i++) {
             for (int j = 0; j < colnumber; j++) {
-                if (flaggrid[i][j] == 1) {
-                    tempgrid[i][j] = 1;
-                } else if (revealgrid[i][j] == 0) {
-                    tempgrid[i][j] = 0;
-                } else if (minegrid[i][j] == 1) {
-                    tempgrid[i][j] = 2;
-                } else {
-                    tempgrid[i][j] = aroundgrid[i][j] + 3;
-                }
+                tempgrid[i][j] = displayValue(cell(i * colnumber + j));
             }
         }
         return tempgrid;
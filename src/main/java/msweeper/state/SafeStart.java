@@ -0,0 +1,19 @@
+package msweeper.state;
+
+/**
+ * Enum representing which squares are kept free of mines when the mines are placed on the first reveal.
+ */
+public enum SafeStart {
+
+    /**
+     * Only the first revealed square is kept free of mines.
+     */
+    SQUARE,
+
+    /**
+     * The first revealed square and the squares adjacent to it are kept free of mines, if there are enough
+     * squares left for the mines. Otherwise only the first revealed square is.
+     */
+    AREA
+
+}
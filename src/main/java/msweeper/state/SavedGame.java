@@ -0,0 +1,38 @@
+package msweeper.state;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Class representing a game loaded by {@link GameFile}.
+ */
+@Value
+public class SavedGame {
+
+    /**
+     * The state of the game.
+     */
+    MsweeperState state;
+
+    /**
+     * How long the game had been played when it was saved.
+     */
+    Duration elapsed;
+
+    /**
+     * The binary form of the journal of the moves of the game, or {@code null} if it has none.
+     */
+    byte[] journal;
+
+    /**
+     * Returns the binary form of the journal of the moves of the game.
+     *
+     * @return the journal, or an empty {@code Optional} if the game has none
+     */
+    public Optional<byte[]> getJournal() {
+        return Optional.ofNullable(journal).map(byte[]::clone);
+    }
+
+}
@@ -1,16 +1,207 @@
 package util.guice;
 
 import com.google.inject.persist.PersistService;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
 
 import javax.inject.Inject;
-import javax.inject.Singleton;
+import javax.inject.Provider;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-@Singleton
+/**
+ * Class starting the {@link PersistService} on a background thread, so the
+ * first window can be shown while the persistence provider and the database
+ * start up. Database access waits for the start by calling
+ * {@link #awaitStarted()}.
+ *
+ * <p>The version of the schema is kept in the {@value #VERSION_TABLE} table.
+ * When it matches the version expected, the schema is used as it is and no
+ * DDL is generated. Otherwise the {@link SchemaMigration migrations} of
+ * the versions in between are run, then the schema is updated from the
+ * entity mappings, keeping the existing data, and the new version is
+ * recorded. A database created before versions were recorded is taken to
+ * be at version {@code 0}.
+ * The update runs against the metadata and the services of the factory
+ * the persistence service has just built, which an {@link Integrator}
+ * registered through {@link #getProperties()} hands over, so no second
+ * factory is booted for it.</p>
+ */
+@Slf4j
 public class JpaInitializer {
 
+    private static final String VERSION_TABLE = "schema_version";
+
+    private final int schemaVersion;
+
+    private final Map<Integer, SchemaMigration> migrations;
+
+    private final CompletableFuture<Void> started = new CompletableFuture<>();
+
+    private volatile Metadata metadata;
+
+    private volatile ServiceRegistry serviceRegistry;
+
+    /**
+     * Constructs a {@code JpaInitializer} object without migrations.
+     *
+     * @param schemaVersion the version of the schema the entity mappings
+     *                      describe
+     */
+    public JpaInitializer(int schemaVersion) {
+        this(schemaVersion, Map.of());
+    }
+
+    /**
+     * Constructs a {@code JpaInitializer} object.
+     *
+     * @param schemaVersion the version of the schema the entity mappings
+     *                      describe
+     * @param migrations the migrations of the schema, by the version they
+     *                   lead to
+     */
+    public JpaInitializer(int schemaVersion, Map<Integer, SchemaMigration> migrations) {
+        this.schemaVersion = schemaVersion;
+        this.migrations = Map.copyOf(migrations);
+    }
+
+    /**
+     * Returns the properties to create the entity manager factory with,
+     * registering the integrator which captures its metadata.
+     *
+     * @return the properties of the persistence unit
+     */
+    public Map<String, Object> getProperties() {
+        IntegratorProvider integratorProvider = () -> List.of(new MetadataCapture());
+        return Map.of(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, integratorProvider);
+    }
+
     @Inject
-    public JpaInitializer (PersistService persistService) {
-        persistService.start();
+    void start(PersistService persistService, Provider<EntityManagerFactory> entityManagerFactoryProvider) {
+        Thread thread = new Thread(() -> {
+            long startTime = System.nanoTime();
+            try {
+                persistService.start();
+                migrate(entityManagerFactoryProvider.get());
+                started.complete(null);
+                log.info("Persistence started in {} ms", (System.nanoTime() - startTime) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.error("Persistence could not be started", e);
+                started.completeExceptionally(e);
+            }
+        }, "jpa-initializer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits until the persistence service has started, returning at once
+     * afterwards.
+     *
+     * @throws IllegalStateException if the persistence service could not be
+     * started
+     */
+    public void awaitStarted() {
+        try {
+            started.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Persistence could not be started", e.getCause());
+        }
+    }
+
+    private void migrate(EntityManagerFactory entityManagerFactory) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            int current = readVersion(entityManager);
+            if (current == schemaVersion) {
+                log.debug("Schema version {} is current", current);
+                return;
+            }
+            log.info("Updating schema from version {} to {}...", current, schemaVersion);
+            if (metadata == null) throw new IllegalStateException("The metadata of the persistence unit is missing");
+            for (int version = Math.max(current, 0) + 1; version <= schemaVersion; ++version) {
+                SchemaMigration migration = migrations.get(version);
+                if (migration != null) {
+                    log.info("Migrating schema to version {}...", version);
+                    migration.migrate(entityManager);
+                }
+            }
+            new SchemaUpdate()
+                    .setHaltOnError(true)
+                    .execute(EnumSet.of(TargetType.DATABASE), metadata, serviceRegistry);
+            writeVersion(entityManager, current < 0);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Returns the version of the schema, {@code 0} if it has not been
+     * recorded, or {@code -1} if the version table does not exist.
+     */
+    private int readVersion(EntityManager entityManager) {
+        try {
+            List<?> versions = entityManager.createNativeQuery("SELECT version FROM " + VERSION_TABLE)
+                    .getResultList();
+            return versions.isEmpty() ? 0 : ((Number) versions.get(0)).intValue();
+        } catch (PersistenceException e) {
+            return -1;
+        }
+    }
+
+    private void writeVersion(EntityManager entityManager, boolean createTable) {
+        entityManager.getTransaction().begin();
+        try {
+            if (createTable) {
+                entityManager.createNativeQuery("CREATE TABLE " + VERSION_TABLE + " (version INTEGER NOT NULL)")
+                        .executeUpdate();
+            }
+            entityManager.createNativeQuery("DELETE FROM " + VERSION_TABLE).executeUpdate();
+            entityManager.createNativeQuery("INSERT INTO " + VERSION_TABLE + " (version) VALUES (?1)")
+                    .setParameter(1, schemaVersion)
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+        }
+    }
+
+    /**
+     * Integrator keeping the metadata of the factory being built and the
+     * services it uses.
+     */
+    private class MetadataCapture implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                              SessionFactoryServiceRegistry serviceRegistry) {
+            JpaInitializer.this.metadata = metadata;
+            JpaInitializer.this.serviceRegistry = serviceRegistry;
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                 SessionFactoryServiceRegistry serviceRegistry) {
+            metadata = null;
+            JpaInitializer.this.serviceRegistry = null;
+        }
+
     }
 
 }
@@ -1,20 +1,43 @@
 package util.guice;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.persist.Transactional;
 import com.google.inject.persist.jpa.JpaPersistModule;
+import org.aopalliance.intercept.MethodInterceptor;
+
+import java.util.Map;
 
 public class PersistenceModule extends AbstractModule {
 
     private String jpaUnit;
 
-    public PersistenceModule(String jpaUnit) {
+    private int schemaVersion;
+
+    private Map<Integer, SchemaMigration> migrations;
+
+    public PersistenceModule(String jpaUnit, int schemaVersion) {
+        this(jpaUnit, schemaVersion, Map.of());
+    }
+
+    public PersistenceModule(String jpaUnit, int schemaVersion, Map<Integer, SchemaMigration> migrations) {
         this.jpaUnit = jpaUnit;
+        this.schemaVersion = schemaVersion;
+        this.migrations = migrations;
     }
 
     @Override
     protected void configure() {
-        install(new JpaPersistModule(jpaUnit));
-        bind(JpaInitializer.class).asEagerSingleton();
+        JpaInitializer jpaInitializer = new JpaInitializer(schemaVersion, migrations);
+        bind(JpaInitializer.class).toInstance(jpaInitializer);
+        // Bound before the module installing the transaction interceptor, so it runs first
+        MethodInterceptor awaitStarted = invocation -> {
+            jpaInitializer.awaitStarted();
+            return invocation.proceed();
+        };
+        bindInterceptor(Matchers.annotatedWith(Transactional.class), Matchers.any(), awaitStarted);
+        bindInterceptor(Matchers.any(), Matchers.annotatedWith(Transactional.class), awaitStarted);
+        install(new JpaPersistModule(jpaUnit).properties(jpaInitializer.getProperties()));
     }
 
 }
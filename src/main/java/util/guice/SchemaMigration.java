@@ -0,0 +1,23 @@
+package util.guice;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Interface of a step bringing the schema of a database from the previous
+ * version to the next one, for the changes which updating the schema from
+ * the entity mappings cannot make by itself, such as adding a column which
+ * cannot be null to a table already holding rows.
+ */
+@FunctionalInterface
+public interface SchemaMigration {
+
+    /**
+     * Migrates the schema. The method is called outside of a transaction,
+     * before the schema is updated from the entity mappings, and must leave
+     * a database which does not have the tables it changes as it is.
+     *
+     * @param entityManager the entity manager to run the statements with
+     */
+    void migrate(EntityManager entityManager);
+
+}
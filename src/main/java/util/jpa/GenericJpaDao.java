@@ -1,23 +1,43 @@
 package util.jpa;
 
 import com.google.inject.persist.Transactional;
+import org.hibernate.annotations.QueryHints;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Generic JPA DAO class that provides JPA support for the entity class
- * specified.
+ * specified. The {@link EntityManager} instance is looked up on each call,
+ * so the same DAO can be used from several threads, each getting the
+ * {@link EntityManager} of its own unit of work.
  *
  * @param <T> the type of the entity class
  */
 public abstract class GenericJpaDao<T> {
 
+    /**
+     * The default number of entity instances written or read between two
+     * flushes of the persistence context, matching the JDBC batch size of
+     * the persistence unit.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 50;
+
     protected Class<T> entityClass;
-    protected EntityManager entityManager;
+    protected Provider<EntityManager> entityManagerProvider;
 
     /**
      * Constructs a {@code GenericJpaDao} object.
@@ -30,22 +50,34 @@ public abstract class GenericJpaDao<T> {
     }
 
     /**
-     * Returns the underlying {@link EntityManager} instance.
+     * Returns the underlying {@link EntityManager} instance of the current
+     * thread.
      *
      * @return the underlying {@link EntityManager} instance
      */
     public EntityManager getEntityManager() {
-        return entityManager;
+        return entityManagerProvider.get();
     }
 
     /**
-     * Sets the underlying {@link EntityManager} instance.
+     * Sets the provider of the underlying {@link EntityManager} instances.
      *
-     * @param entityManager the underlying {@link EntityManager} instance
+     * @param entityManagerProvider the provider of the underlying
+     *                              {@link EntityManager} instances
      */
     @Inject
+    public void setEntityManagerProvider(Provider<EntityManager> entityManagerProvider) {
+        this.entityManagerProvider = entityManagerProvider;
+    }
+
+    /**
+     * Sets the underlying {@link EntityManager} instance, to be used from
+     * every thread.
+     *
+     * @param entityManager the underlying {@link EntityManager} instance
+     */
     public void setEntityManager(EntityManager entityManager) {
-        this.entityManager = entityManager;
+        this.entityManagerProvider = () -> entityManager;
     }
 
     /**
@@ -55,7 +87,46 @@ public abstract class GenericJpaDao<T> {
      */
     @Transactional
     public void persist(T entity) {
-        entityManager.persist(entity);
+        getEntityManager().persist(entity);
+    }
+
+    /**
+     * Persists the specified entity instances in the database, in a single
+     * transaction, in chunks of {@value #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param entities the entity instances to be persisted in the database
+     * @see #persistAll(Collection, int)
+     */
+    @Transactional
+    public void persistAll(Collection<? extends T> entities) {
+        persistAll(entities, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Persists the specified entity instances in the database, in a single
+     * transaction. The persistence context is flushed and cleared after
+     * every {@code chunkSize} instances, so with JDBC batching enabled each
+     * chunk is sent to the database in one batch, and the instances do not
+     * pile up in memory. The instances are detached afterwards.
+     *
+     * @param entities the entity instances to be persisted in the database
+     * @param chunkSize the number of instances persisted between two flushes
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     */
+    @Transactional
+    public void persistAll(Collection<? extends T> entities, int chunkSize) {
+        requirePositive(chunkSize);
+        EntityManager entityManager = getEntityManager();
+        int count = 0;
+        for (T entity : entities) {
+            entityManager.persist(entity);
+            if (++count % chunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
     }
 
     /**
@@ -69,7 +140,7 @@ public abstract class GenericJpaDao<T> {
      */
     @Transactional
     public Optional<T> find(Object primaryKey) {
-        return Optional.ofNullable(entityManager.find(entityClass, primaryKey));
+        return Optional.ofNullable(getEntityManager().find(entityClass, primaryKey));
     }
 
     /**
@@ -79,10 +150,69 @@ public abstract class GenericJpaDao<T> {
      */
     @Transactional
     public List<T> findAll() {
-        TypedQuery<T> typedQuery = entityManager.createQuery("FROM " + entityClass.getSimpleName(), entityClass);
+        TypedQuery<T> typedQuery = getEntityManager().createQuery("FROM " + entityClass.getSimpleName(), entityClass);
         return typedQuery.getResultList();
     }
 
+    /**
+     * Passes every instance of the entity class in the database to the
+     * specified action, reading them in chunks of
+     * {@value #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param action the action to perform on each instance
+     * @see #forEach(int, Consumer)
+     */
+    @Transactional
+    public void forEach(Consumer<? super T> action) {
+        forEach(DEFAULT_CHUNK_SIZE, action);
+    }
+
+    /**
+     * Passes every instance of the entity class in the database to the
+     * specified action, in a single transaction. Unlike {@link #findAll()},
+     * the instances are read with a cursor, {@code fetchSize} rows at a
+     * time, and the persistence context is flushed and cleared after every
+     * {@code fetchSize} instances, so memory use does not grow with the
+     * size of the table. Changes the action makes to the instances are
+     * saved.
+     *
+     * @param fetchSize the number of instances read at a time
+     * @param action the action to perform on each instance
+     * @throws IllegalArgumentException if {@code fetchSize} is not positive
+     */
+    @Transactional
+    public void forEach(int fetchSize, Consumer<? super T> action) {
+        forEach(getEntityManager().createQuery("FROM " + entityClass.getSimpleName(), entityClass), fetchSize, action);
+    }
+
+    /**
+     * Passes every result of the specified query to the specified action
+     * the way {@link #forEach(int, Consumer)} does. The method must be
+     * called inside a transaction.
+     *
+     * @param typedQuery the query to run
+     * @param fetchSize the number of results read at a time
+     * @param action the action to perform on each result
+     * @throws IllegalArgumentException if {@code fetchSize} is not positive
+     */
+    protected void forEach(TypedQuery<T> typedQuery, int fetchSize, Consumer<? super T> action) {
+        requirePositive(fetchSize);
+        EntityManager entityManager = getEntityManager();
+        typedQuery.setHint(QueryHints.FETCH_SIZE, fetchSize);
+        try (Stream<T> stream = typedQuery.getResultStream()) {
+            int count = 0;
+            for (T entity : (Iterable<T>) stream::iterator) {
+                action.accept(entity);
+                if (++count % fetchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
     /**
      * Removes the specified entity instance from the database.
      *
@@ -90,7 +220,68 @@ public abstract class GenericJpaDao<T> {
      */
     @Transactional
     public void remove(T entity) {
-        entityManager.remove(entity);
+        getEntityManager().remove(entity);
+    }
+
+    /**
+     * Removes the specified entity instances from the database, in a single
+     * transaction, in chunks of {@value #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param entities the entity instances to be removed from the database
+     * @see #removeAll(Collection, int)
+     */
+    @Transactional
+    public void removeAll(Collection<? extends T> entities) {
+        removeAll(entities, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Removes the specified entity instances from the database, in a single
+     * transaction. The instances may be detached: they are removed by their
+     * primary keys, without being loaded again. The persistence context is
+     * flushed and cleared after every {@code chunkSize} instances.
+     *
+     * @param entities the entity instances to be removed from the database
+     * @param chunkSize the number of instances removed between two flushes
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive
+     */
+    @Transactional
+    public void removeAll(Collection<? extends T> entities, int chunkSize) {
+        requirePositive(chunkSize);
+        EntityManager entityManager = getEntityManager();
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        int count = 0;
+        for (T entity : entities) {
+            entityManager.remove(entityManager.contains(entity)
+                    ? entity
+                    : entityManager.getReference(entityClass, persistenceUnitUtil.getIdentifier(entity)));
+            if (++count % chunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Removes every instance of the entity class matching the specified
+     * condition from the database with a single {@code DELETE} statement.
+     * The instances are not loaded, so lifecycle callbacks are not invoked
+     * and instances already in the persistence context are not affected.
+     *
+     * @param condition the function building the condition from the
+     *                  {@link CriteriaBuilder} and the root of the query
+     * @return the number of instances removed
+     */
+    @Transactional
+    public int removeWhere(BiFunction<CriteriaBuilder, Root<T>, Predicate> condition) {
+        EntityManager entityManager = getEntityManager();
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaDelete<T> criteriaDelete = criteriaBuilder.createCriteriaDelete(entityClass);
+        Root<T> root = criteriaDelete.from(entityClass);
+        criteriaDelete.where(condition.apply(criteriaBuilder, root));
+        return entityManager.createQuery(criteriaDelete).executeUpdate();
     }
 
     /**
@@ -100,7 +291,13 @@ public abstract class GenericJpaDao<T> {
      */
     @Transactional
     public void update(T entity) {
-        entityManager.merge(entity);
+        getEntityManager().merge(entity);
+    }
+
+    private static void requirePositive(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size must be positive: " + size);
+        }
     }
 
 }
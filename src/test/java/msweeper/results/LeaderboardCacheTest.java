@@ -0,0 +1,163 @@
+package msweeper.results;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeaderboardCacheTest {
+
+    private static final BoardConfig CONFIG = new BoardConfig(9, 9, 10);
+
+    private static final ZonedDateTime CREATED = ZonedDateTime.now();
+
+    private static class StubDao extends ResultDao {
+
+        private final List<Result> best = new ArrayList<>();
+
+        private int queries;
+
+        private int failures;
+
+        private final CountDownLatch loading = new CountDownLatch(1);
+
+        private CountDownLatch loaded = new CountDownLatch(0);
+
+        @Override
+        public List<Result> findBest(BoardConfig config, Result after, int n) {
+            queries++;
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("database unavailable");
+            }
+            loading.countDown();
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return best.stream()
+                    .filter(result -> result.getBoardConfig().equals(config))
+                    .sorted(LeaderboardCache.RANKING)
+                    .limit(n)
+                    .collect(Collectors.toList());
+        }
+
+    }
+
+    private static Result result(long id, BoardConfig config, boolean solved, long seconds) {
+        return Result.builder()
+                .id(id)
+                .boardRows(config.getRows())
+                .boardColumns(config.getColumns())
+                .boardMines(config.getMines())
+                .solved(solved)
+                .duration(Duration.ofSeconds(seconds))
+                .created(CREATED)
+                .build();
+    }
+
+    private static List<Long> ids(List<Result> results) {
+        return results.stream().map(Result::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testGetBest() {
+        StubDao dao = new StubDao();
+        for (int i = 1; i <= 12; i++) {
+            dao.best.add(result(i, CONFIG, true, 100 - i));
+        }
+        dao.best.add(result(13, new BoardConfig(16, 16, 40), true, 1));
+        LeaderboardCache cache = new LeaderboardCache(dao);
+        cache.warm(CONFIG);
+        assertEquals(1, dao.queries);
+        List<Result> best = cache.getBest(CONFIG);
+        assertEquals(1, dao.queries);
+        assertEquals(List.of(12L, 11L, 10L, 9L, 8L, 7L, 6L, 5L, 4L, 3L), ids(best));
+        assertThrows(UnsupportedOperationException.class, () -> best.add(result(14, CONFIG, true, 1)));
+        assertEquals(List.of(13L), ids(cache.getBest(new BoardConfig(16, 16, 40))));
+        assertEquals(2, dao.queries);
+    }
+
+    @Test
+    void testRecord() {
+        StubDao dao = new StubDao();
+        for (int i = 1; i <= 10; i++) {
+            dao.best.add(result(i, CONFIG, true, 10 * i));
+        }
+        LeaderboardCache cache = new LeaderboardCache(dao);
+        cache.record(result(11, CONFIG, true, 1));
+        assertEquals(0, dao.queries);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids(cache.getBest(CONFIG)));
+
+        cache.record(result(12, CONFIG, true, 15));
+        assertEquals(List.of(1L, 12L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), ids(cache.getBest(CONFIG)));
+        cache.record(result(12, CONFIG, true, 15));
+        assertEquals(List.of(1L, 12L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), ids(cache.getBest(CONFIG)));
+        cache.record(result(13, CONFIG, false, 5));
+        cache.record(result(14, CONFIG, true, 500));
+        cache.record(result(15, new BoardConfig(16, 16, 40), true, 5));
+        assertEquals(List.of(1L, 12L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), ids(cache.getBest(CONFIG)));
+        cache.record(result(16, CONFIG, true, 10));
+        assertEquals(List.of(16L, 1L, 12L, 2L, 3L, 4L, 5L, 6L, 7L, 8L), ids(cache.getBest(CONFIG)));
+        assertEquals(1, dao.queries);
+    }
+
+    @Test
+    void testRecord_WhileLoading() throws InterruptedException {
+        StubDao dao = new StubDao();
+        dao.best.add(result(1, CONFIG, true, 10));
+        dao.loaded = new CountDownLatch(1);
+        LeaderboardCache cache = new LeaderboardCache(dao);
+        Thread loader = new Thread(() -> cache.warm(CONFIG));
+        loader.start();
+        dao.loading.await();
+        Thread recorder = new Thread(() -> cache.record(result(2, CONFIG, true, 5)));
+        recorder.start();
+        recorder.join(100);
+        dao.loaded.countDown();
+        loader.join();
+        recorder.join();
+        assertEquals(List.of(2L, 1L), ids(cache.getBest(CONFIG)));
+        assertEquals(1, dao.queries);
+    }
+
+    @Test
+    void testGetBest_LoadFailure() {
+        StubDao dao = new StubDao();
+        dao.best.add(result(1, CONFIG, true, 10));
+        dao.failures = 1;
+        LeaderboardCache cache = new LeaderboardCache(dao);
+        assertThrows(IllegalStateException.class, () -> cache.getBest(CONFIG));
+        cache.record(result(2, CONFIG, true, 5));
+        assertEquals(List.of(1L), ids(cache.getBest(CONFIG)));
+        assertEquals(2, dao.queries);
+    }
+
+    @Test
+    void testListener() {
+        StubDao dao = new StubDao();
+        dao.best.add(result(1, CONFIG, true, 10));
+        LeaderboardCache cache = new LeaderboardCache(dao);
+        List<BoardConfig> notified = new ArrayList<>();
+        Consumer<BoardConfig> listener = notified::add;
+        cache.addListener(listener);
+        cache.record(result(2, CONFIG, true, 5));
+        assertEquals(List.of(), notified);
+        cache.warm(CONFIG);
+        cache.record(result(3, CONFIG, true, 5));
+        cache.record(result(4, CONFIG, false, 5));
+        assertEquals(List.of(CONFIG), notified);
+        cache.removeListener(listener);
+        cache.record(result(5, CONFIG, true, 1));
+        assertEquals(List.of(CONFIG), notified);
+    }
+
+}
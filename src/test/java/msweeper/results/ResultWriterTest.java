@@ -0,0 +1,120 @@
+package msweeper.results;
+
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.PersistenceException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultWriterTest {
+
+    private static class RecordingDao extends ResultDao {
+
+        private final List<Integer> batches = new ArrayList<>();
+
+        private final List<Result> results = new ArrayList<>();
+
+        private int failures;
+
+        RecordingDao(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public synchronized void persistAll(Collection<? extends Result> entities) {
+            if (failures > 0) {
+                failures--;
+                throw new PersistenceException(new SQLTransientConnectionException("database unavailable"));
+            }
+            if (entities.stream().anyMatch(result -> result.getPlayerName() == null)) {
+                throw new PersistenceException("not-null property references a null value");
+            }
+            batches.add(entities.size());
+            results.addAll(entities);
+        }
+
+    }
+
+    @Test
+    void testSubmit() {
+        RecordingDao dao = new RecordingDao(0);
+        ResultWriter writer = new ResultWriter(dao, new LeaderboardCache(dao));
+        for (int i = 0; i < 120; i++) {
+            writer.submit(Result.builder().playerName("player" + i).build());
+        }
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        assertEquals(0, writer.getPending());
+        assertEquals(120, dao.results.size());
+        assertEquals("player0", dao.results.get(0).getPlayerName());
+        assertEquals("player119", dao.results.get(119).getPlayerName());
+        assertTrue(dao.batches.stream().allMatch(size -> size <= 50));
+        writer.close();
+    }
+
+    @Test
+    void testSubmit_Retry() {
+        RecordingDao dao = new RecordingDao(1);
+        ResultWriter writer = new ResultWriter(dao, new LeaderboardCache(dao));
+        writer.submit(Result.builder().playerName("player").build());
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        assertEquals(1, dao.results.size());
+        writer.close();
+    }
+
+    @Test
+    void testSubmit_RetryTransientFailures() {
+        RecordingDao dao = new RecordingDao(3);
+        ResultWriter writer = new ResultWriter(dao, new LeaderboardCache(dao), Duration.ofMillis(1));
+        for (int i = 0; i < 3; i++) {
+            writer.submit(Result.builder().playerName("player" + i).build());
+        }
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        assertEquals(3, dao.results.size());
+        assertEquals("player0", dao.results.get(0).getPlayerName());
+        assertEquals("player2", dao.results.get(2).getPlayerName());
+        writer.close();
+    }
+
+    @Test
+    void testSubmit_GiveUpAfterAttempts() {
+        RecordingDao dao = new RecordingDao(4);
+        ResultWriter writer = new ResultWriter(dao, new LeaderboardCache(dao), Duration.ofMillis(1));
+        writer.submit(Result.builder().playerName("lost").build());
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        writer.submit(Result.builder().playerName("saved").build());
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        assertEquals(1, dao.results.size());
+        assertEquals("saved", dao.results.get(0).getPlayerName());
+        writer.close();
+    }
+
+    @Test
+    void testSubmit_BadResult() {
+        RecordingDao dao = new RecordingDao(0);
+        ResultWriter writer = new ResultWriter(dao, new LeaderboardCache(dao), Duration.ofMillis(1));
+        synchronized (dao) {
+            writer.submit(Result.builder().playerName("first").build());
+            writer.submit(Result.builder().build());
+            writer.submit(Result.builder().playerName("last").build());
+        }
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        assertEquals(List.of("first", "last"),
+                dao.results.stream().map(Result::getPlayerName).collect(Collectors.toList()));
+        writer.close();
+    }
+
+    @Test
+    void testClose() {
+        RecordingDao dao = new RecordingDao(0);
+        ResultWriter writer = new ResultWriter(dao, new LeaderboardCache(dao));
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.submit(new Result()));
+    }
+
+}
@@ -0,0 +1,97 @@
+package msweeper.simulation;
+
+import msweeper.state.BoardId;
+import msweeper.state.MsweeperState;
+import msweeper.state.SafeStart;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveJournalTest {
+    @Test
+    void testReplay(){
+        for (long seed = 0; seed < 20; ++seed) {
+            MsweeperState state = new MsweeperState(16, 30, 99, SafeStart.SQUARE, seed);
+            MoveJournal journal = new MoveJournal(state.getBoardId().orElseThrow());
+            Player player = new SolverPlayer();
+            player.start(state, new SplittableRandom(seed));
+            long time = 0;
+            while (!state.isWon() && !state.isLost()) {
+                Move move = player.nextMove(state);
+                move.apply(state);
+                journal.record(move, time += 250);
+            }
+            byte[] bytes = journal.toByteArray();
+            assertTrue(bytes.length < 40 + 4 * journal.getMoveCount());
+            Replay replay = Replayer.replay(bytes);
+            assertEquals(journal.getMoveCount(), replay.getMoves());
+            assertEquals(Duration.ofMillis(time), replay.getDuration());
+            assertEquals(state.isWon(), replay.isWon());
+            assertArrayEquals(state.displayGrid(), replay.getState().displayGrid());
+            assertTrue(replay.confirms(state.isWon(), Duration.ofMillis(time + 1000)));
+            assertFalse(replay.confirms(state.isWon(), Duration.ofMillis(time - 1)));
+            assertFalse(replay.confirms(!state.isWon(), Duration.ofMillis(time)));
+        }
+    }
+
+    @Test
+    void testDecode(){
+        MoveJournal journal = new MoveJournal(new BoardId(9, 9, 10, null, 5L));
+        journal.record(Move.reveal(4, 4), 0);
+        journal.record(Move.flag(0, 0), 1200);
+        journal.record(Move.chord(8, 8), 1500);
+        MoveJournal.Decoded decoded = MoveJournal.decode(journal.toByteArray());
+        assertEquals(new BoardId(9, 9, 10, null, 5L), decoded.getBoardId());
+        assertEquals(3, decoded.getEntries().size());
+        assertEquals(new MoveJournal.Entry(Move.reveal(4, 4), 0), decoded.getEntries().get(0));
+        assertEquals(new MoveJournal.Entry(Move.flag(0, 0), 1200), decoded.getEntries().get(1));
+        assertEquals(new MoveJournal.Entry(Move.chord(8, 8), 1500), decoded.getEntries().get(2));
+        assertThrows(IllegalArgumentException.class, () -> journal.record(Move.reveal(0, 1), 1000));
+    }
+
+    @Test
+    void testResume(){
+        MoveJournal journal = new MoveJournal(new BoardId(9, 9, 10, null, 5L));
+        journal.record(Move.reveal(4, 4), 0);
+        journal.record(Move.flag(0, 0), 1200);
+        MoveJournal resumed = MoveJournal.resume(journal.toByteArray(), Duration.ofSeconds(60));
+        assertEquals(journal.getBoardId(), resumed.getBoardId());
+        assertEquals(2, resumed.getMoveCount());
+        resumed.record(Move.chord(8, 8));
+        MoveJournal.Decoded decoded = MoveJournal.decode(resumed.toByteArray());
+        assertEquals(3, decoded.getEntries().size());
+        assertEquals(Move.flag(0, 0), decoded.getEntries().get(1).getMove());
+        assertEquals(Move.chord(8, 8), decoded.getEntries().get(2).getMove());
+        assertTrue(decoded.getEntries().get(2).getTime() >= 60_000);
+        assertThrows(IllegalArgumentException.class, () -> MoveJournal.resume(new byte[]{2}, Duration.ZERO));
+    }
+
+    @Test
+    void testDecode_Invalid(){
+        MoveJournal journal = new MoveJournal(new BoardId(9, 9, 10, null, 5L));
+        journal.record(Move.reveal(0, 1), 0);
+        byte[] bytes = journal.toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> MoveJournal.decode(new byte[]{2}));
+        assertThrows(IllegalArgumentException.class,
+                () -> MoveJournal.decode(java.util.Arrays.copyOf(bytes, bytes.length - 1)));
+        bytes[bytes.length - 2] = 0x7C;
+        assertThrows(IllegalArgumentException.class, () -> MoveJournal.decode(bytes));
+    }
+
+    @Test
+    void testReplay_MoveAfterEnd(){
+        MsweeperState state = new MsweeperState(9, 9, 10, 5L);
+        int x = 0;
+        while (!state.isMine(x / 9, x % 9)) {
+            x++;
+        }
+        MoveJournal journal = new MoveJournal(state.getBoardId().orElseThrow());
+        journal.record(Move.reveal(x / 9, x % 9), 0);
+        journal.record(Move.reveal(0, 0), 10);
+        assertThrows(IllegalArgumentException.class, () -> Replayer.replay(journal.toByteArray()));
+    }
+
+}
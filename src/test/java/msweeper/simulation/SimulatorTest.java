@@ -0,0 +1,62 @@
+package msweeper.simulation;
+
+import msweeper.state.MsweeperState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatorTest {
+    @Test
+    void testRun(){
+        SimulationResult result = new Simulator("solver", SolverPlayer::new).run(9, 9, 10, 200, 1L);
+        assertEquals(200, result.getGames());
+        assertTrue(result.getWins() > 0);
+        assertEquals(result.getWins() / 200.0, result.getWinRate(), 1e-12);
+        long total = 0;
+        for (long games : result.getMovesHistogram()) {
+            total += games;
+        }
+        assertEquals(200, total);
+        assertTrue(result.getMovesPercentile(0.5) <= result.getMaxMoves());
+        assertTrue(result.getGamesPerSecond() > 0);
+    }
+
+    @Test
+    void testRun_SameSeed(){
+        Simulator simulator = new Simulator("random", RandomPlayer::new);
+        SimulationResult first = simulator.run(8, 8, 10, 100, 7L);
+        SimulationResult second = simulator.run(8, 8, 10, 100, 7L);
+        assertEquals(first.getWins(), second.getWins());
+        assertArrayEquals(first.getMovesHistogram(), second.getMovesHistogram());
+    }
+
+    @Test
+    void testRun_Empty(){
+        SimulationResult result = new Simulator("random", RandomPlayer::new).run(3, 3, 0, 10, 1L);
+        assertEquals(10, result.getWins());
+        assertEquals(10, result.getGames(1));
+    }
+
+    @Test
+    void testRun_NoProgress(){
+        Simulator simulator = new Simulator("stuck", () -> state -> Move.flag(0, 0));
+        assertThrows(IllegalStateException.class, () -> simulator.run(3, 3, 1, 1, 1L));
+    }
+
+    @Test
+    void testRun_Invalid(){
+        Simulator simulator = new Simulator("random", RandomPlayer::new);
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(0, 3, 1, 1, 1L));
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(3, 3, 1, -1, 1L));
+    }
+
+    @Test
+    void testMove_Apply(){
+        MsweeperState state = new MsweeperState(new int[][]{{0, 1}});
+        Move.flag(0, 1).apply(state);
+        assertTrue(state.isFlagged(0, 1));
+        Move.reveal(0, 0).apply(state);
+        assertTrue(state.isWon());
+    }
+
+}
@@ -0,0 +1,70 @@
+package msweeper.solver;
+
+import msweeper.state.MsweeperState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardSolverTest {
+    @Test
+    void testSingleSquareRule(){
+        BoardSolver solver = new BoardSolver(new int[][]{
+                {3, 4, 0},
+                {3, 4, 0},
+                {3, 3, 3}
+        });
+        assertTrue(solver.solve());
+        assertEquals(List.of(new Square(0, 2)), solver.getMines());
+        assertEquals(List.of(new Square(1, 2)), solver.getSafeSquares());
+        assertEquals(0, solver.getFrontierSize());
+    }
+
+    @Test
+    void testOverlapRule(){
+        // the 1-2-1 pattern: the squares below the 1s are mines, the one below the 2 is safe
+        BoardSolver solver = new BoardSolver(new int[][]{
+                {4, 5, 4},
+                {0, 0, 0}
+        });
+        assertTrue(solver.solve());
+        assertTrue(solver.isMine(1, 0));
+        assertTrue(solver.isMine(1, 2));
+        assertTrue(solver.isSafe(1, 1));
+        assertFalse(solver.solve());
+    }
+
+    @Test
+    void testUndecidable(){
+        BoardSolver solver = new BoardSolver(new int[][]{
+                {4, 0},
+                {0, 0}
+        });
+        assertFalse(solver.solve());
+        assertEquals(1, solver.getFrontierSize());
+        assertFalse(solver.isSafe(1, 1));
+        assertFalse(solver.isMine(1, 1));
+    }
+
+    @Test
+    void testAttach_FollowsState(){
+        int[][] minefield = {
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 1, 0, 0}
+        };
+        MsweeperState state = new MsweeperState(minefield);
+        BoardSolver solver = BoardSolver.attach(state);
+        state.reveal(0,3);
+        while (!state.isWon() && solver.solve() | !solver.getSafeSquares().isEmpty()) {
+            for (Square square : solver.getSafeSquares()) {
+                state.reveal(square.getX(), square.getY());
+            }
+        }
+        assertTrue(state.isWon());
+        assertFalse(state.isLost());
+        assertTrue(solver.isMine(2, 1));
+    }
+
+}
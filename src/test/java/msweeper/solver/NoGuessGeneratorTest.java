@@ -0,0 +1,72 @@
+package msweeper.solver;
+
+import msweeper.state.MsweeperState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoGuessGeneratorTest {
+    @Test
+    void testGenerate(){
+        MsweeperState state = new NoGuessGenerator(9, 9, 10).generate(4, 4, new SplittableRandom(1));
+        assertEquals(10, state.getMinenumber());
+        assertArrayEquals(state.getMinegrid(), state.getBoardId().get().createState().getMinegrid());
+        for (int i = 3; i <= 5; ++i) {
+            for (int j = 3; j <= 5; ++j) {
+                assertFalse(state.isMine(i, j));
+            }
+        }
+        BoardSolver solver = BoardSolver.attach(state);
+        ProbabilityCalculator calculator = new ProbabilityCalculator();
+        state.reveal(4, 4);
+        while (!state.isWon()) {
+            solver.solve();
+            double[][] probabilities = calculator.calculate(state);
+            boolean progress = false;
+            for (int i = 0; i < 9; ++i) {
+                for (int j = 0; j < 9; ++j) {
+                    if (probabilities[i][j] == 0 && !state.isRevealed(i, j)) {
+                        state.reveal(i, j);
+                        progress = true;
+                    }
+                }
+            }
+            assertTrue(progress);
+        }
+        assertFalse(state.isLost());
+    }
+
+    @Test
+    void testGenerate_Batch(){
+        NoGuessGenerator generator = new NoGuessGenerator(16, 16, 40);
+        List<MsweeperState> first = generator.generate(8, 0, 0, 42L);
+        List<MsweeperState> second = generator.generate(8, 0, 0, 42L);
+        assertEquals(8, first.size());
+        for (int i = 0; i < 8; ++i) {
+            assertArrayEquals(first.get(i).getMinegrid(), second.get(i).getMinegrid());
+            assertEquals(40, first.get(i).getMinenumber());
+            assertEquals(first.get(i).getBoardId(), second.get(i).getBoardId());
+        }
+    }
+
+    @Test
+    void testFill(){
+        BlockingQueue<MsweeperState> queue = new ArrayBlockingQueue<>(4);
+        new NoGuessGenerator(8, 8, 10).fill(queue, 4, 7, 7, 1L);
+        assertEquals(4, queue.size());
+    }
+
+    @Test
+    void testGenerate_Invalid(){
+        assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(3, 3, 1));
+        assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(0, 9, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new NoGuessGenerator(9, 9, 10).generate(9, 0, new SplittableRandom(1)));
+    }
+
+}
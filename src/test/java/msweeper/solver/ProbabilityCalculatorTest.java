@@ -0,0 +1,77 @@
+package msweeper.solver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProbabilityCalculatorTest {
+    @Test
+    void testCalculate_Frontier(){
+        double[][] probabilities = new ProbabilityCalculator().calculate(new int[][]{
+                {4, 5, 4},
+                {0, 0, 0}
+        }, 2);
+        assertEquals(0, probabilities[0][1], 1e-12);
+        assertEquals(1, probabilities[1][0], 1e-12);
+        assertEquals(0, probabilities[1][1], 1e-12);
+        assertEquals(1, probabilities[1][2], 1e-12);
+    }
+
+    @Test
+    void testCalculate_Interior(){
+        double[][] probabilities = new ProbabilityCalculator().calculate(new int[][]{
+                {4, 0, 0, 0}
+        }, 2);
+        assertEquals(1, probabilities[0][1], 1e-12);
+        assertEquals(0.5, probabilities[0][2], 1e-12);
+        assertEquals(0.5, probabilities[0][3], 1e-12);
+    }
+
+    @Test
+    void testCalculate_NoMinesLeftForInterior(){
+        double[][] probabilities = new ProbabilityCalculator().calculate(new int[][]{
+                {4, 0, 0},
+                {0, 0, 0}
+        }, 1);
+        assertEquals(1.0 / 3, probabilities[0][1], 1e-12);
+        assertEquals(0, probabilities[0][2], 1e-12);
+    }
+
+    @Test
+    void testCalculate_Inconsistent(){
+        assertThrows(IllegalArgumentException.class, () -> new ProbabilityCalculator().calculate(new int[][]{
+                {5, 0}
+        }, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ProbabilityCalculator().calculate(new int[][]{
+                {4, 0, 0}
+        }, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ProbabilityCalculator(ForkJoinPool.commonPool(), 0));
+    }
+
+    @Test
+    void testCalculate_CutOff(){
+        // one component of 320 squares, with far too many configurations to enumerate
+        int[][] grid = new int[21][21];
+        for (int i = 0; i < 21; i += 2) {
+            for (int j = 0; j < 21; j += 2) {
+                grid[i][j] = 5;
+            }
+        }
+        long start = System.nanoTime();
+        double[][] probabilities = new ProbabilityCalculator(ForkJoinPool.commonPool(),
+                ProbabilityCalculator.DEFAULT_MAX_VISITS).calculate(grid, 120);
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        double sum = 0;
+        for (int i = 0; i < 21; ++i) {
+            for (int j = 0; j < 21; ++j) {
+                assertTrue(probabilities[i][j] >= 0 && probabilities[i][j] <= 1);
+                sum += probabilities[i][j];
+            }
+        }
+        assertEquals(0, probabilities[0][0], 1e-12);
+        assertEquals(120, sum, 1e-6);
+    }
+
+}
@@ -0,0 +1,62 @@
+package msweeper.state;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardAnalyzerTest {
+    @Test
+    void testAnalyze(){
+        assertEquals(new BoardMetrics(2, 1, 1), BoardAnalyzer.analyze(new MsweeperState(new int[][]{
+                {0, 1, 0, 0, 0}
+        })));
+        assertEquals(new BoardMetrics(8, 0, 1), BoardAnalyzer.analyze(new MsweeperState(new int[][]{
+                {0, 0, 0},
+                {0, 1, 0},
+                {0, 0, 0}
+        })));
+        assertEquals(new BoardMetrics(3, 1, 2), BoardAnalyzer.analyze(new MsweeperState(new int[][]{
+                {0, 1, 0, 0, 0, 0, 1, 0},
+                {1, 1, 0, 0, 0, 0, 1, 1}
+        })));
+        assertEquals(new BoardMetrics(0, 0, 0), BoardAnalyzer.analyze(new MsweeperState(new int[][]{
+                {1, 1}
+        })));
+    }
+
+    @Test
+    void testAnalyze_AgreesWithClicks(){
+        for (long seed = 0; seed < 50; ++seed) {
+            MsweeperState state = new MsweeperState(16, 30, 99, seed);
+            BoardMetrics metrics = BoardAnalyzer.analyze(state);
+            MsweeperState clicked = state.snapshot();
+            int clicks = 0;
+            for (int i = 0; i < 16; ++i) {
+                for (int j = 0; j < 30; ++j) {
+                    if (!clicked.isMine(i, j) && clicked.getMinesAround(i, j) == 0 && !clicked.isRevealed(i, j)) {
+                        clicked.reveal(i, j);
+                        clicks++;
+                    }
+                }
+            }
+            assertEquals(metrics.getOpenings(), clicks);
+            for (int i = 0; i < 16; ++i) {
+                for (int j = 0; j < 30; ++j) {
+                    if (!clicked.isMine(i, j) && !clicked.isRevealed(i, j)) {
+                        clicked.reveal(i, j);
+                        clicks++;
+                    }
+                }
+            }
+            assertEquals(metrics.getBbbv(), clicks);
+            assertTrue(clicked.isWon());
+        }
+    }
+
+    @Test
+    void testAnalyze_MinesNotPlaced(){
+        assertThrows(IllegalStateException.class,
+                () -> BoardAnalyzer.analyze(new MsweeperState(9, 9, 10, SafeStart.SQUARE)));
+    }
+
+}
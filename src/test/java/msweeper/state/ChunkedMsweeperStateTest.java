@@ -0,0 +1,54 @@
+package msweeper.state;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedMsweeperStateTest {
+    @Test
+    void testConstructor_InvalidArg(){
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedMsweeperState(ChunkedMsweeperState.MIN_MINES_PER_CHUNK - 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedMsweeperState(ChunkedMsweeperState.MAX_MINES_PER_CHUNK + 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedMsweeperState(800, 0, -1));
+    }
+
+    @Test
+    void testReveal_OriginIsSafe(){
+        for(long seed = 0; seed<10; ++seed){
+            ChunkedMsweeperState state = new ChunkedMsweeperState(800, seed);
+            assertTrue(state.reveal(0,0) >= 9);
+            assertFalse(state.isLost());
+            assertEquals(3, state.displayValue(0,0));
+            assertEquals(0, state.reveal(0,0));
+        }
+    }
+
+    @Test
+    void testReveal_CrossesChunks(){
+        ChunkedMsweeperState state = new ChunkedMsweeperState(ChunkedMsweeperState.MIN_MINES_PER_CHUNK, 1, 0);
+        int opened = 0;
+        for(int i = -200; i<200 && !state.isLost(); i += 7){
+            opened += state.reveal(i,-i);
+        }
+        assertEquals(opened, state.getRevealednumber() + state.getDetonatednumber());
+        assertEquals(state.getTouchedChunks(), state.getLoadedChunks());
+        assertTrue(state.getTouchedChunks() > 1);
+    }
+
+    @Test
+    void testGeneration_IsDeterministic(){
+        ChunkedMsweeperState first = new ChunkedMsweeperState(1000, 5, 0);
+        ChunkedMsweeperState second = new ChunkedMsweeperState(1000, 5, 100);
+        for(int i = -100; i<100; i += 13){
+            first.reveal(i,3*i);
+            second.reveal(i,3*i);
+        }
+        for(int i = -100; i<100; ++i){
+            for(int j = -300; j<300; j += 7){
+                assertEquals(first.displayValue(i,j), second.displayValue(i,j));
+            }
+        }
+        assertEquals(0, new ChunkedMsweeperState(1000, 5).displayValue(70,70));
+    }
+
+}
@@ -0,0 +1,137 @@
+package msweeper.state;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameFileTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("msweeper");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("game.msav"));
+        Files.delete(directory);
+    }
+
+    @Test
+    void testWriteRead() throws IOException {
+        Path path = directory.resolve("game.msav");
+        MsweeperState state = new MsweeperState(70, 90, 600, 3L);
+        state.putFlag(0, 0);
+        state.reveal(35, 45);
+        GameFile.write(path, state, Duration.ofSeconds(42));
+        assertEquals(48 + 70 * 90 + 8 + state.getBoardId().get().toString().length(), Files.size(path));
+        SavedGame saved = GameFile.read(path);
+        MsweeperState loaded = saved.getState();
+        assertEquals(Duration.ofSeconds(42), saved.getElapsed());
+        assertEquals(state.getBoardId(), loaded.getBoardId());
+        assertEquals(state.getRevealednumber(), loaded.getRevealednumber());
+        assertEquals(1, loaded.getFlagnumber());
+        assertTrue(loaded.isFlagged(0, 0));
+        assertArrayEquals(state.displayGrid(), loaded.displayGrid());
+        assertEquals(state, loaded);
+        assertEquals(state.reveal(69, 89), loaded.reveal(69, 89));
+        assertArrayEquals(state.getRevealgrid(), loaded.getRevealgrid());
+    }
+
+    @Test
+    void testWriteRead_BeforeMinesArePlaced() throws IOException {
+        Path path = directory.resolve("game.msav");
+        MsweeperState state = new MsweeperState(9, 9, 10, SafeStart.AREA, 7L);
+        GameFile.write(path, state, Duration.ZERO);
+        MsweeperState loaded = GameFile.read(path).getState();
+        assertFalse(loaded.isMinesplaced());
+        assertEquals(SafeStart.AREA, loaded.getSafestart());
+        state.reveal(4, 4);
+        loaded.reveal(4, 4);
+        assertArrayEquals(state.getMinegrid(), loaded.getMinegrid());
+    }
+
+    @Test
+    void testWrite_OverLoadedGame() throws IOException {
+        Path path = directory.resolve("game.msav");
+        MsweeperState state = new MsweeperState(new int[][]{
+                {1, 0, 0},
+                {0, 0, 0}
+        });
+        GameFile.write(path, state, Duration.ZERO);
+        MsweeperState loaded = GameFile.read(path).getState();
+        MsweeperState snapshot = loaded.snapshot();
+        loaded.reveal(1, 2);
+        loaded.reveal(1, 0);
+        GameFile.write(path, loaded, Duration.ofMillis(1500));
+        assertFalse(snapshot.isRevealed(1, 2));
+        SavedGame saved = GameFile.read(path);
+        assertTrue(saved.getState().isWon());
+        assertFalse(saved.getState().getBoardId().isPresent());
+        assertEquals(Duration.ofMillis(1500), saved.getElapsed());
+    }
+
+    @Test
+    void testWriteRead_MovedMines() throws IOException {
+        Path path = directory.resolve("game.msav");
+        MsweeperState state = new BoardId(9, 9, 10, SafeStart.AREA, 7L, 40, new int[0]).createState();
+        int from = 0;
+        while (!state.isMine(from / 9, from % 9)) ++from;
+        int to = 80;
+        while (state.isMine(to / 9, to % 9)) --to;
+        state.moveMine(from / 9, from % 9, to / 9, to % 9);
+        GameFile.write(path, state, Duration.ZERO);
+        MsweeperState loaded = GameFile.read(path).getState();
+        assertEquals(state.getBoardId(), loaded.getBoardId());
+        assertArrayEquals(state.getMinegrid(), loaded.getBoardId().get().createState().getMinegrid());
+    }
+
+    @Test
+    void testWriteRead_Journal() throws IOException {
+        Path path = directory.resolve("game.msav");
+        MsweeperState state = new MsweeperState(9, 9, 10, 7L);
+        byte[] journal = {1, 2, 3, 4, 5};
+        GameFile.write(path, state, Duration.ZERO, journal);
+        assertArrayEquals(journal, GameFile.read(path).getJournal().orElseThrow());
+        GameFile.write(path, state, Duration.ZERO);
+        assertFalse(GameFile.read(path).getJournal().isPresent());
+    }
+
+    @Test
+    void testRead_DetachedFromFile() throws IOException {
+        Path path = directory.resolve("game.msav");
+        MsweeperState state = new MsweeperState(70, 90, 600, 3L);
+        state.reveal(35, 45);
+        GameFile.write(path, state, Duration.ZERO);
+        MsweeperState loaded = GameFile.read(path).getState();
+        Files.write(path, new byte[(int) Files.size(path)]);
+        Files.delete(path);
+        assertArrayEquals(state.displayGrid(), loaded.displayGrid());
+    }
+
+    @Test
+    void testRead_Invalid() throws IOException {
+        Path path = directory.resolve("game.msav");
+        Files.write(path, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> GameFile.read(path));
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> GameFile.read(path));
+        GameFile.write(path, new MsweeperState(3, 3, 1, 1L), Duration.ZERO);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> GameFile.read(path));
+        bytes[4] = 2;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> GameFile.read(path));
+    }
+
+}
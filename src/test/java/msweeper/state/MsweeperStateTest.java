@@ -10,6 +10,7 @@ public class MsweeperStateTest {
         assertThrows(IllegalArgumentException.class, () -> new MsweeperState(0,1,0));
         assertThrows(IllegalArgumentException.class, () -> new MsweeperState(3,4,13));
         assertThrows(IllegalArgumentException.class, () -> new MsweeperState(-1,-13, 10));
+        assertThrows(IllegalArgumentException.class, () -> new MsweeperState(3,4,-1));
     }
 
     @Test
@@ -104,7 +105,8 @@ public class MsweeperStateTest {
         };
         MsweeperState state = new MsweeperState(minefield);
         assertThrows(IllegalArgumentException.class, () -> state.reveal(3,2));
-        state.reveal(1,2);
+        assertEquals(6, state.reveal(1,2));
+        assertEquals(0, state.reveal(1,2));
         assertArrayEquals(state.getRevealgrid(), new int[][]{
             {0, 1, 1},
             {0, 1, 1},
@@ -173,4 +175,358 @@ public class MsweeperStateTest {
         assertFalse(state.isHidden());
     }
 
+    @Test
+    void testSquareAccessors(){
+        int[][] minefield = {
+                {1, 0, 0},
+                {1, 0, 1},
+                {0, 0, 0}
+        };
+        MsweeperState state = new MsweeperState(minefield);
+        state.putFlag(0,0);
+        state.reveal(2,2);
+        assertTrue(state.isMine(1,2));
+        assertFalse(state.isMine(1,1));
+        assertTrue(state.isFlagged(0,0));
+        assertTrue(state.isRevealed(2,2));
+        assertFalse(state.isRevealed(2,1));
+        assertEquals(3, state.getMinesAround(1,1));
+        assertEquals(4, state.displayValue(2,2));
+        assertEquals(1, state.displayValue(0,0));
+    }
+
+    @Test
+    void testReveal_LargeEmptyBoard(){
+        MsweeperState state = new MsweeperState(2000,2000,0);
+        assertEquals(4000000, state.reveal(1000,1000));
+        assertTrue(state.isWon());
+    }
+
+    @Test
+    void testCounters(){
+        int[][] minefield = {
+                {1, 0, 0},
+                {1, 0, 1},
+                {0, 0, 0}
+        };
+        MsweeperState state = new MsweeperState(minefield);
+        assertEquals(3, state.getMinenumber());
+        assertEquals(3, state.getRemainingMines());
+        state.putFlag(0,0);
+        state.putFlag(2,0);
+        assertEquals(2, state.getFlagnumber());
+        assertEquals(1, state.getRemainingMines());
+        state.putFlag(2,0);
+        state.reveal(2,2);
+        assertEquals(1, state.getRevealednumber());
+        assertEquals(0, state.getDetonatednumber());
+        assertEquals(2, state.getRemainingMines());
+        state.reveal(1,0);
+        assertEquals(1, state.getDetonatednumber());
+        assertTrue(state.isLost());
+    }
+
+    @Test
+    void testChanges(){
+        int[][] minefield = {
+                {1, 0, 0},
+                {1, 0, 1},
+                {0, 0, 0}
+        };
+        MsweeperState state = new MsweeperState(minefield);
+        state.putFlag(0,0);
+        assertEquals(1, state.getChanges().size());
+        assertEquals(0, state.getChanges().getX(0));
+        assertEquals(0, state.getChanges().getY(0));
+        state.reveal(2,2);
+        assertEquals(1, state.getChanges().size());
+        assertEquals(8, state.getChanges().getIndex(0));
+        state.reveal(2,2);
+        assertTrue(state.getChanges().isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> state.getChanges().getIndex(0));
+    }
+
+    @Test
+    void testThreeArgConstructor_DenseGrid(){
+        MsweeperState state = new MsweeperState(100,100,9999);
+        assertEquals(9999, state.getMinenumber());
+        int counter = 0;
+        for(int i = 0; i<100; ++i){
+            for(int j = 0; j<100; ++j){
+                if(state.isMine(i,j)) counter++;
+            }
+        }
+        assertEquals(9999, counter);
+        MsweeperState full = new MsweeperState(3,3,9);
+        assertEquals(8, full.getMinesAround(1,1));
+        assertEquals(3, full.getMinesAround(0,0));
+    }
+
+    @Test
+    void testFourArgConstructor_InvalidArg(){
+        assertThrows(IllegalArgumentException.class, () -> new MsweeperState(3,3,9, SafeStart.SQUARE));
+        assertThrows(IllegalArgumentException.class, () -> new MsweeperState(0,3,0, SafeStart.SQUARE));
+        assertThrows(IllegalArgumentException.class, () -> new MsweeperState(3,3,-1, SafeStart.SQUARE));
+        assertThrows(IllegalArgumentException.class, () -> new MsweeperState(3,3,1, null));
+    }
+
+    @Test
+    void testFourArgConstructor_FirstRevealIsSafe(){
+        for(int k = 0; k<20; ++k){
+            MsweeperState state = new MsweeperState(3,3,8, SafeStart.SQUARE);
+            assertFalse(state.isMinesplaced());
+            state.putFlag(0,0);
+            state.reveal(1,1);
+            assertTrue(state.isMinesplaced());
+            assertTrue(state.isWon());
+            assertTrue(state.isFlagged(0,0));
+            assertEquals(8, state.getMinesAround(1,1));
+        }
+        MsweeperState state = new MsweeperState(10,10,91, SafeStart.AREA);
+        state.reveal(5,5);
+        assertEquals(9, state.getRevealednumber());
+        assertTrue(state.isWon());
+        MsweeperState dense = new MsweeperState(10,10,95, SafeStart.AREA);
+        dense.reveal(0,0);
+        assertFalse(dense.isLost());
+    }
+
+    @Test
+    void testSeed(){
+        MsweeperState first = new MsweeperState(16,30,99, 42L);
+        MsweeperState second = new MsweeperState(16,30,99, 42L);
+        assertArrayEquals(first.getMinegrid(), second.getMinegrid());
+        MsweeperState deferred = new MsweeperState(16,30,99, SafeStart.AREA, 42L);
+        deferred.reveal(3,4);
+        MsweeperState regenerated = deferred.getBoardId().get().createState();
+        regenerated.reveal(3,4);
+        assertArrayEquals(deferred.getMinegrid(), regenerated.getMinegrid());
+        assertFalse(new MsweeperState(new int[][]{{0}}).getBoardId().isPresent());
+    }
+
+    @Test
+    void testBoardId(){
+        BoardId id = new BoardId(16,30,99, SafeStart.AREA, -1234567890123L);
+        String text = id.toString();
+        assertTrue(text.length() <= 16);
+        assertEquals(id, BoardId.parse(text));
+        BoardId immediate = new BoardId(5,10,10, null, 7L);
+        assertEquals(immediate, BoardId.parse(immediate.toString()));
+        assertArrayEquals(new MsweeperState(5,10,10, 7L).getMinegrid(), immediate.createState().getMinegrid());
+        assertThrows(IllegalArgumentException.class, () -> BoardId.parse("not an id"));
+        assertThrows(IllegalArgumentException.class, () -> BoardId.parse(""));
+    }
+
+    @Test
+    void testBoardId_Moves(){
+        BoardId id = new BoardId(16,30,99, SafeStart.AREA, 5L, 8*30+8, new int[0]);
+        assertEquals(id, BoardId.parse(id.toString()));
+        assertEquals(-1, BoardId.parse(new BoardId(16,30,99, SafeStart.AREA, 5L).toString()).getStart());
+        assertEquals(new BoardId(16,30,99, SafeStart.AREA, 5L).toString().charAt(0), id.toString().charAt(0));
+        MsweeperState state = new MsweeperState(16,30,99, SafeStart.AREA, 5L);
+        state.reveal(8,8);
+        MsweeperState created = id.createState();
+        assertTrue(created.isMinesplaced());
+        assertEquals(id, created.getBoardId().get());
+        assertArrayEquals(state.getMinegrid(), created.getMinegrid());
+        int from = 0;
+        while (!created.isMine(from / 30, from % 30)) ++from;
+        created.moveMine(from / 30, from % 30, 8, 8);
+        BoardId moved = created.getBoardId().get();
+        assertArrayEquals(new int[]{from, 8*30+8}, moved.getMoves());
+        assertEquals(moved, BoardId.parse(moved.toString()));
+        assertArrayEquals(created.getMinegrid(), BoardId.parse(moved.toString()).createState().getMinegrid());
+        assertThrows(IllegalArgumentException.class,
+                () -> new BoardId(16,30,99, null, 5L, 0, new int[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BoardId(16,30,99, SafeStart.AREA, 5L, 0, new int[]{1}));
+    }
+
+    @Test
+    void testMoveMine(){
+        MsweeperState state = new MsweeperState(16,30,99, SafeStart.AREA, 21L);
+        state.reveal(8,8);
+        int fromX = -1, fromY = -1, toX = -1, toY = -1;
+        for (int i = 0; i < 16; ++i) {
+            for (int j = 0; j < 30; ++j) {
+                if (state.isMine(i, j) && fromX < 0) {
+                    fromX = i;
+                    fromY = j;
+                } else if (!state.isMine(i, j) && !state.isRevealed(i, j)) {
+                    toX = i;
+                    toY = j;
+                }
+            }
+        }
+        state.moveMine(fromX, fromY, toX, toY);
+        assertFalse(state.isMine(fromX, fromY));
+        assertTrue(state.isMine(toX, toY));
+        assertEquals(99, state.getMinenumber());
+        MsweeperState expected = new MsweeperState(state.getMinegrid());
+        for (int i = 0; i < 16; ++i) {
+            for (int j = 0; j < 30; ++j) {
+                assertEquals(expected.getMinesAround(i, j), state.getMinesAround(i, j));
+            }
+        }
+        MsweeperState regenerated = state.getBoardId().get().createState();
+        assertArrayEquals(state.getMinegrid(), regenerated.getMinegrid());
+        int x = fromX, y = fromY;
+        assertThrows(IllegalArgumentException.class, () -> state.moveMine(x, y, 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> state.moveMine(8, 8, x, y));
+    }
+
+    @Test
+    void testSnapshot(){
+        MsweeperState state = new MsweeperState(100,100,1000, 3L);
+        state.putFlag(0,0);
+        MsweeperState snapshot = state.snapshot();
+        assertEquals(state, snapshot);
+        snapshot.putFlag(99,99);
+        snapshot.reveal(50,50);
+        assertTrue(state.isFlagged(0,0));
+        assertFalse(state.isFlagged(99,99));
+        assertTrue(state.isHidden());
+        assertTrue(snapshot.isFlagged(99,99));
+        assertTrue(snapshot.isFlagged(0,0));
+        assertFalse(snapshot.isHidden());
+        assertEquals(1, state.getFlagnumber());
+        assertEquals(2, snapshot.getFlagnumber());
+        assertArrayEquals(state.getMinegrid(), snapshot.getMinegrid());
+        assertNotEquals(state, snapshot);
+    }
+
+    @Test
+    void testSnapshot_BeforeMinesArePlaced(){
+        MsweeperState state = new MsweeperState(16,30,99, SafeStart.AREA, 11L);
+        MsweeperState snapshot = state.clone();
+        state.reveal(8,8);
+        snapshot.reveal(8,8);
+        assertArrayEquals(state.getMinegrid(), snapshot.getMinegrid());
+        assertArrayEquals(state.displayGrid(), snapshot.displayGrid());
+    }
+
+    @Test
+    void testListeners(){
+        int[][] minefield = {
+                {1, 0, 0},
+                {1, 0, 1},
+                {0, 0, 0}
+        };
+        MsweeperState state = new MsweeperState(minefield);
+        StringBuilder events = new StringBuilder();
+        GameListener listener = new GameListener() {
+            @Override
+            public void squaresRevealed(MsweeperState state, ChangeSet changes) {
+                events.append("revealed").append(changes.size()).append(' ');
+            }
+
+            @Override
+            public void flagToggled(MsweeperState state, int x, int y, boolean flagged) {
+                events.append("flag").append(flagged).append(' ');
+            }
+
+            @Override
+            public void gameLost(MsweeperState state) {
+                events.append("lost ");
+            }
+
+            @Override
+            public void moveFinished(MsweeperState state, long elapsedNanos) {
+                events.append("move ");
+            }
+        };
+        MoveTimingHistogram timings = new MoveTimingHistogram();
+        state.addListener(listener);
+        state.addListener(timings);
+        state.putFlag(0,0);
+        state.reveal(0,0);
+        state.reveal(2,2);
+        state.reveal(1,0);
+        state.removeListener(listener);
+        state.reveal(2,0);
+        assertEquals("flagtrue move move revealed1 move revealed1 lost move ", events.toString());
+        assertEquals(5, timings.getCount());
+        assertTrue(timings.getPercentile(100) >= timings.getPercentile(50));
+    }
+
+    @Test
+    void testChord(){
+        MsweeperState state = new MsweeperState(new int[][]{
+                {1, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        });
+        assertEquals(1, state.reveal(1,1));
+        assertEquals(0, state.chord(1,1));
+        assertEquals(0, state.chord(2,3));
+        state.putFlag(0,0);
+        assertEquals(10, state.chord(1,1));
+        assertEquals(10, state.getChanges().size());
+        assertTrue(state.isWon());
+        assertFalse(state.isLost());
+        assertThrows(IllegalArgumentException.class, () -> state.chord(3,0));
+    }
+
+    @Test
+    void testChord_WrongFlag(){
+        MsweeperState state = new MsweeperState(new int[][]{
+                {1, 0, 0},
+                {0, 0, 0}
+        });
+        StringBuilder events = new StringBuilder();
+        state.addListener(new GameListener() {
+            @Override
+            public void squaresRevealed(MsweeperState state, ChangeSet changes) {
+                events.append("revealed").append(changes.size()).append(' ');
+            }
+
+            @Override
+            public void gameLost(MsweeperState state) {
+                events.append("lost ");
+            }
+        });
+        state.reveal(1,1);
+        state.putFlag(0,1);
+        assertEquals(4, state.chord(1,1));
+        assertTrue(state.isLost());
+        assertTrue(state.isRevealed(0,0));
+        assertFalse(state.isRevealed(0,1));
+        assertEquals("revealed1 revealed4 lost ", events.toString());
+    }
+
+    @Test
+    void testReveal_Parallel(){
+        MsweeperState parallel = new MsweeperState(600, 700, 2000, 5L);
+        MsweeperState sequential = parallel.snapshot();
+        parallel.setParallelThreshold(0);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.putFlag(300, 350);
+        sequential.putFlag(300, 350);
+        int x = 0;
+        while (parallel.isMine(x, 0) || parallel.getMinesAround(x, 0) != 0) {
+            x++;
+        }
+        int opened = sequential.reveal(x, 0);
+        assertTrue(opened > 4096);
+        assertEquals(opened, parallel.reveal(x, 0));
+        assertEquals(opened, parallel.getChanges().size());
+        assertEquals(sequential.getRevealednumber(), parallel.getRevealednumber());
+        assertArrayEquals(sequential.getRevealgrid(), parallel.getRevealgrid());
+        assertEquals(sequential.reveal(599, 699), parallel.reveal(599, 699));
+        assertArrayEquals(sequential.getRevealgrid(), parallel.getRevealgrid());
+    }
+
+    @Test
+    void testReveal_QueueTrimmed(){
+        MsweeperState state = new MsweeperState(400, 400, 1, 3L);
+        int x = 0;
+        while (state.isMine(x, 0) || state.getMinesAround(x, 0) != 0) {
+            x++;
+        }
+        int opened = state.reveal(x, 0);
+        assertTrue(opened > 1 << 16);
+        assertEquals(opened, state.getChanges().size());
+        assertTrue(state.getQueueCapacity() <= 1 << 16);
+    }
+
 }
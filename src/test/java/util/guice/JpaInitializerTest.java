@@ -0,0 +1,115 @@
+package util.guice;
+
+import com.google.inject.persist.PersistService;
+import msweeper.results.BoardConfig;
+import msweeper.results.Result;
+import msweeper.results.ResultMigrations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JpaInitializerTest {
+
+    private static final String URL = "jdbc:h2:mem:msweeper;DB_CLOSE_DELAY=-1";
+
+    private EntityManagerFactory factory;
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (factory != null) factory.close();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    private EntityManagerFactory start(int schemaVersion) {
+        JpaInitializer jpaInitializer = new JpaInitializer(schemaVersion, ResultMigrations.MIGRATIONS);
+        Map<String, Object> properties = new HashMap<>(jpaInitializer.getProperties());
+        properties.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("javax.persistence.jdbc.url", URL);
+        properties.put("javax.persistence.jdbc.user", "sa");
+        properties.put("javax.persistence.jdbc.password", "");
+        jpaInitializer.start(new PersistService() {
+            @Override
+            public void start() {
+                factory = Persistence.createEntityManagerFactory("minesweeper", properties);
+            }
+
+            @Override
+            public void stop() {
+                factory.close();
+            }
+        }, () -> factory);
+        jpaInitializer.awaitStarted();
+        return factory;
+    }
+
+    private static int readVersion(EntityManager entityManager) {
+        return ((Number) entityManager.createNativeQuery("SELECT version FROM schema_version").getSingleResult())
+                .intValue();
+    }
+
+    @Test
+    void testStart_LegacySchema() throws SQLException {
+        // the schema and a result as saved before the schema was versioned
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE hibernate_sequence START WITH 2 INCREMENT BY 1");
+            statement.execute("CREATE TABLE Result (id BIGINT NOT NULL, created TIMESTAMP NOT NULL,"
+                    + " duration BIGINT NOT NULL, playerName VARCHAR(255) NOT NULL, solved BOOLEAN NOT NULL,"
+                    + " PRIMARY KEY (id))");
+            statement.execute("INSERT INTO Result (id, created, duration, playerName, solved)"
+                    + " VALUES (1, CURRENT_TIMESTAMP, 42000000000, 'legacy', TRUE)");
+        }
+        EntityManager entityManager = start(Result.SCHEMA_VERSION).createEntityManager();
+        try {
+            assertEquals(Result.SCHEMA_VERSION, readVersion(entityManager));
+            Result legacy = entityManager.find(Result.class, 1L);
+            assertEquals("legacy", legacy.getPlayerName());
+            assertEquals(Duration.ofSeconds(42), legacy.getDuration());
+            assertEquals(new BoardConfig(5, 10, 10), legacy.getBoardConfig());
+            assertEquals(0, legacy.getBbbv());
+            assertNull(legacy.getJournal());
+            entityManager.getTransaction().begin();
+            entityManager.persist(Result.builder()
+                    .playerName("new")
+                    .solved(true)
+                    .boardRows(5)
+                    .boardColumns(10)
+                    .boardMines(10)
+                    .duration(Duration.ofSeconds(10))
+                    .bbbv(12)
+                    .journal(new byte[]{1, 2, 3})
+                    .build());
+            entityManager.getTransaction().commit();
+            assertEquals(2L, entityManager.createQuery("SELECT COUNT(r) FROM Result r").getSingleResult());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testStart_EmptyDatabase() {
+        EntityManager entityManager = start(Result.SCHEMA_VERSION).createEntityManager();
+        try {
+            assertEquals(Result.SCHEMA_VERSION, readVersion(entityManager));
+            assertEquals(0L, entityManager.createQuery("SELECT COUNT(r) FROM Result r").getSingleResult());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+}